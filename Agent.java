@@ -0,0 +1,16 @@
+import java.util.ArrayList;
+
+/**
+ * Interface for anything which can choose plays in a game (a computer player).
+ */
+public interface Agent {
+
+    /**
+     * Chooses one of the legal plays for the player to move.
+     *
+     * @param game the game (should not be changed by the agent)
+     * @param plays the legal plays for the dice rolled (never empty)
+     * @return the chosen play
+     */
+    Play choosePlay(Game game, ArrayList<Play> plays);
+}
@@ -0,0 +1,96 @@
+import javax.imageio.ImageIO;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.EnumMap;
+
+/**
+ * Class which packs the images of Images into a single atlas image, with an index of where each image is, so that the
+ * game decodes one file at startup instead of one per image.
+ *
+ * Images are packed in shelves: sorted by height, then placed left to right in rows no wider than a maximum width.
+ *
+ * Index format (text): one line per image, "key x y width height".
+ */
+public class AtlasPacker {
+
+    // Maximum width of the atlas
+    private static final int MAX_WIDTH = 2048;
+
+    /**
+     * Packs the images and writes the atlas and its index.
+     *
+     * @param directory directory containing the images (see Images.getFile())
+     * @param image atlas image file to write
+     * @param index atlas index file to write
+     * @throws IOException if an image cannot be read or the atlas cannot be written
+     */
+    public static void pack(File directory, File image, File index) throws IOException {
+        ArrayList<Images.k> keys = new ArrayList<>();
+        EnumMap<Images.k, BufferedImage> images = new EnumMap<>(Images.k.class);
+
+        for (Images.k key : Images.k.values()) {
+            File file = new File(directory, new File(Images.getFile(key)).getName());
+            BufferedImage read = ImageIO.read(file);
+            if (read == null)
+                throw new IOException("Not an image: " + file);
+
+            keys.add(key);
+            images.put(key, read);
+        }
+
+        // Tallest first, so that each shelf wastes little height
+        keys.sort((a, b) -> images.get(b).getHeight() - images.get(a).getHeight());
+
+        EnumMap<Images.k, Rectangle> regions = new EnumMap<>(Images.k.class);
+        int x = 0, y = 0, shelfHeight = 0, width = 0;
+
+        for (Images.k key : keys) {
+            BufferedImage read = images.get(key);
+
+            if (x > 0 && x + read.getWidth() > MAX_WIDTH) {
+                x = 0;
+                y += shelfHeight;
+                shelfHeight = 0;
+            }
+
+            regions.put(key, new Rectangle(x, y, read.getWidth(), read.getHeight()));
+            x += read.getWidth();
+            width = Math.max(width, x);
+            shelfHeight = Math.max(shelfHeight, read.getHeight());
+        }
+
+        BufferedImage atlas = new BufferedImage(width, y + shelfHeight, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = atlas.createGraphics();
+        for (Images.k key : keys)
+            g.drawImage(images.get(key), regions.get(key).x, regions.get(key).y, null);
+        g.dispose();
+
+        if (!ImageIO.write(atlas, "png", image))
+            throw new IOException("Cannot write " + image);
+
+        try (PrintWriter out = new PrintWriter(new OutputStreamWriter(new FileOutputStream(index), StandardCharsets.UTF_8))) {
+            for (Images.k key : Images.k.values()) {
+                Rectangle r = regions.get(key);
+                out.printf("%s %d %d %d %d%n", key, r.x, r.y, r.width, r.height);
+            }
+        }
+    }
+
+    /**
+     * Driver method. Packs the images in the image directory into Images.ATLAS_IMAGE and Images.ATLAS_INDEX.
+     *
+     * @param args directory containing the images (optional)
+     * @throws IOException if an image cannot be read or the atlas cannot be written
+     */
+    public static void main(String[] args) throws IOException {
+        File directory = new File(args.length > 0 ? args[0] : Images.DIRECTORY);
+        File image = new File(directory, new File(Images.ATLAS_IMAGE).getName());
+        File index = new File(directory, new File(Images.ATLAS_INDEX).getName());
+
+        pack(directory, image, index);
+        System.out.printf("Wrote %s (%d images) and %s%n", image, Images.k.values().length, index);
+    }
+}
@@ -0,0 +1,114 @@
+import java.io.IOException;
+
+/**
+ * Class which evaluates races in which both players are bearing off from the bearoff databases, and all other
+ * positions with another evaluator.
+ *
+ * Pairs of home boards in the two-sided database are evaluated exactly. Other bearoff positions are evaluated from
+ * the one-sided database, treating the two players' numbers of rolls as independent. Either database may be missing.
+ */
+public class BearoffEvaluator implements Evaluator {
+
+    /*
+     * Variable Dictionary
+     *
+     * defaultOneSided - one-sided database at OneSidedBearoff.DEFAULT_FILE, shared by all evaluators (see create())
+     * defaultTwoSided - two-sided database at TwoSidedBearoff.DEFAULT_FILE, shared by all evaluators (see create())
+     * defaultsOpened  - whether the default databases have been opened
+     *
+     * fallback        - evaluator of positions which are not in the databases
+     * oneSided        - one-sided database (null if none)
+     * twoSided        - two-sided database (null if none)
+     */
+    private static OneSidedBearoff defaultOneSided;
+    private static TwoSidedBearoff defaultTwoSided;
+    private static boolean defaultsOpened;
+
+    private Evaluator fallback;
+    private OneSidedBearoff oneSided;
+    private TwoSidedBearoff twoSided;
+
+    /**
+     * Constructs a new bearoff evaluator.
+     *
+     * @param fallback evaluator of positions which are not in the databases
+     * @param oneSided one-sided database (null if none)
+     * @param twoSided two-sided database (null if none)
+     */
+    public BearoffEvaluator(Evaluator fallback, OneSidedBearoff oneSided, TwoSidedBearoff twoSided) {
+        this.fallback = fallback;
+        this.oneSided = oneSided;
+        this.twoSided = twoSided;
+    }
+
+    /**
+     * Makes a bearoff evaluator with the databases at their default files, which are opened (mapped) only once.
+     * Databases which have not been generated are left out.
+     *
+     * @param fallback evaluator of positions which are not in the databases
+     * @return the evaluator
+     */
+    public static synchronized BearoffEvaluator create(Evaluator fallback) {
+        if (!defaultsOpened) {
+            defaultsOpened = true;
+
+            try {
+                if (OneSidedBearoff.DEFAULT_FILE.exists())
+                    defaultOneSided = OneSidedBearoff.open(OneSidedBearoff.DEFAULT_FILE);
+                if (TwoSidedBearoff.DEFAULT_FILE.exists())
+                    defaultTwoSided = TwoSidedBearoff.open(TwoSidedBearoff.DEFAULT_FILE);
+            } catch (IOException ioe) {
+                System.err.println(ioe.toString());
+            }
+        }
+
+        return new BearoffEvaluator(fallback, defaultOneSided, defaultTwoSided);
+    }
+
+    /**
+     * Estimates the equity of a position for a player.
+     *
+     * @param position the position
+     * @param color colour of the player who has just moved
+     * @return the equity
+     */
+    @Override
+    public double evaluate(Position position, Game.Color color) {
+        Game.Color other = (color == Game.Color.BLACK) ? Game.Color.WHITE : Game.Color.BLACK;
+
+        if (position.checkWinner() != Game.Color.NONE || !MoveGenerator.canBearOff(position, color)
+                || !MoveGenerator.canBearOff(position, other))
+            return fallback.evaluate(position, color);
+
+        // The other player is on roll
+        int onRoll = OneSidedBearoff.getIndex(position, other), mine = OneSidedBearoff.getIndex(position, color);
+
+        if (twoSided != null && twoSided.contains(onRoll) && twoSided.contains(mine))
+            return 1 - 2 * twoSided.getWinProbability(onRoll, mine);
+
+        if (oneSided != null && position.getBorneOffCount(color) > 0 && position.getBorneOffCount(other) > 0)
+            return 1 - 2 * getWinProbability(onRoll, mine);
+
+        // A player who has not borne off any stones may lose a gammon, which the databases do not cover
+        return fallback.evaluate(position, color);
+    }
+
+    /**
+     * Estimates the probability that the player on roll wins from the one-sided database: they win if they need no
+     * more rolls than the other player.
+     *
+     * @param onRoll index of the home board of the player on roll
+     * @param other index of the home board of the other player
+     * @return the probability
+     */
+    private double getWinProbability(int onRoll, int other) {
+        double win = 0, otherAtLeast = 1;
+
+        for (int rolls = 0; rolls < OneSidedBearoff.MAX_ROLLS; rolls++) {
+            win += oneSided.getProbability(onRoll, rolls) * otherAtLeast;
+            otherAtLeast -= oneSided.getProbability(other, rolls);
+        }
+
+        return Math.min(1, Math.max(0, win));
+    }
+}
@@ -0,0 +1,289 @@
+import java.awt.Point;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+
+/**
+ * Class which measures the speed and allocation of the engine and board over a set of realistic positions.
+ *
+ * Each benchmark is warmed up, then timed; allocation is read from the JVM's per-thread allocation counter.
+ * Run with the names (or parts of names) of the benchmarks to run, or no arguments to run all.
+ */
+public class Benchmark {
+
+    // Rolls played in every position
+    private static final int[][] ROLLS = { {3, 1}, {6, 5}, {2, 1}, {5, 5, 5, 5}, {6, 6, 6, 6}, {1, 1, 1, 1} };
+
+    // Hidden units of the benchmarked network
+    private static final int NETWORK_HIDDEN = 80;
+
+    private static final int WARMUP_MILLIS = 1000, MEASURE_MILLIS = 2000;
+
+    // Sink for results, so work is not optimised away
+    private static volatile long sink;
+
+    /**
+     * Interface for the body of a benchmark.
+     */
+    private interface Body {
+
+        /**
+         * Runs one operation.
+         *
+         * @return any number depending on the work done
+         */
+        long run();
+    }
+
+    /**
+     * Gets the corpus of positions, black to move in each.
+     *
+     * @return positions by name
+     */
+    public static LinkedHashMap<String, Position> getPositions() {
+        LinkedHashMap<String, Position> positions = new LinkedHashMap<>();
+
+        positions.put("opening", new Position());
+
+        Position contact = new Position();
+        contact.clear();
+        contact.setStones(Position.BLACK_BAR, Game.Color.BLACK, 1);
+        contact.setStones(1, Game.Color.BLACK, 1);
+        contact.setStones(12, Game.Color.BLACK, 3);
+        contact.setStones(17, Game.Color.BLACK, 3);
+        contact.setStones(19, Game.Color.BLACK, 3);
+        contact.setStones(20, Game.Color.BLACK, 2);
+        contact.setStones(22, Game.Color.BLACK, 2);
+        contact.setStones(24, Game.Color.WHITE, 2);
+        contact.setStones(13, Game.Color.WHITE, 4);
+        contact.setStones(8, Game.Color.WHITE, 2);
+        contact.setStones(6, Game.Color.WHITE, 4);
+        contact.setStones(5, Game.Color.WHITE, 2);
+        contact.setStones(3, Game.Color.WHITE, 1);
+        positions.put("contact", contact);
+
+        Position prime = new Position();
+        prime.clear();
+        for (int p = 17; p <= 22; p++)
+            prime.setStones(p, Game.Color.BLACK, 2);
+        prime.setStones(12, Game.Color.BLACK, 3);
+        prime.setStones(24, Game.Color.WHITE, 2);
+        prime.setStones(23, Game.Color.WHITE, 1);
+        prime.setStones(13, Game.Color.WHITE, 2);
+        prime.setStones(8, Game.Color.WHITE, 3);
+        prime.setStones(6, Game.Color.WHITE, 4);
+        prime.setStones(5, Game.Color.WHITE, 3);
+        positions.put("prime", prime);
+
+        Position bearoff = new Position();
+        bearoff.clear();
+        bearoff.setStones(19, Game.Color.BLACK, 3);
+        bearoff.setStones(20, Game.Color.BLACK, 3);
+        bearoff.setStones(21, Game.Color.BLACK, 2);
+        bearoff.setStones(22, Game.Color.BLACK, 2);
+        bearoff.setStones(23, Game.Color.BLACK, 2);
+        bearoff.setStones(24, Game.Color.BLACK, 1);
+        bearoff.setStones(Position.BLACK_HOME, Game.Color.BLACK, 2);
+        bearoff.setStones(1, Game.Color.WHITE, 2);
+        bearoff.setStones(2, Game.Color.WHITE, 3);
+        bearoff.setStones(3, Game.Color.WHITE, 3);
+        bearoff.setStones(4, Game.Color.WHITE, 2);
+        bearoff.setStones(5, Game.Color.WHITE, 2);
+        bearoff.setStones(6, Game.Color.WHITE, 1);
+        bearoff.setStones(Position.WHITE_HOME, Game.Color.WHITE, 2);
+        positions.put("bearoff", bearoff);
+
+        return positions;
+    }
+
+    /**
+     * Times a benchmark and prints the time and allocation per operation.
+     *
+     * @param name name of the benchmark
+     * @param body the benchmark
+     */
+    private static void measure(String name, Body body) {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().getId(), result = 0;
+
+        // Warm up
+        long end = System.nanoTime() + WARMUP_MILLIS * 1000000L;
+        while (System.nanoTime() < end)
+            result += body.run();
+
+        // Measure
+        long ops = 0, bytes = threads.getThreadAllocatedBytes(thread), start = System.nanoTime();
+        end = start + MEASURE_MILLIS * 1000000L;
+        long now;
+        do {
+            for (int i = 0; i < 16; i++)
+                result += body.run();
+            ops += 16;
+        } while ((now = System.nanoTime()) < end);
+        bytes = threads.getThreadAllocatedBytes(thread) - bytes;
+
+        sink += result;
+        System.out.printf("%-40s %12.1f ns/op %12.0f op/s %12.1f B/op%n", name, (double) (now - start) / ops,
+                ops / ((now - start) / 1e9), (double) bytes / ops);
+    }
+
+    /**
+     * Adds the benchmarks of the engine and board to a map.
+     *
+     * @param names output map of benchmark name to body
+     */
+    private static void addBenchmarks(LinkedHashMap<String, Body> names) {
+        LinkedHashMap<String, Position> positions = getPositions();
+        NeuralEvaluator network = NeuralEvaluator.create(NETWORK_HIDDEN, 1);
+        HeuristicEvaluator heuristic = new HeuristicEvaluator();
+
+        for (String key : positions.keySet()) {
+            Position position = positions.get(key);
+
+            names.put("MoveGenerator.generateTree/" + key, () -> {
+                long n = 0;
+                for (int[] roll : ROLLS)
+                    n += MoveGenerator.generateTree(position, Game.Color.BLACK, roll).getDepth();
+                return n;
+            });
+
+            names.put("MoveGenerator.generatePlays/" + key, () -> {
+                long n = 0;
+                for (int[] roll : ROLLS)
+                    n += MoveGenerator.generatePlays(position, Game.Color.BLACK, roll).size();
+                return n;
+            });
+
+            Position generating = new Position(position);
+            MoveList buffer = new MoveList();
+
+            names.put("MoveGenerator.generateMoves/" + key, () -> {
+                long n = 0;
+                for (int[] roll : ROLLS) {
+                    MoveGenerator.generateMoves(generating, Game.Color.BLACK, roll, buffer);
+                    n += buffer.size();
+                }
+                return n;
+            });
+
+            AllPips allPips = new AllPips(new Position(position));
+
+            names.put("AllPips.setPossibleMoves/" + key, () -> {
+                long n = 0;
+                for (int[] roll : ROLLS) {
+                    MoveGenerator.generateMoves(generating, Game.Color.BLACK, roll, buffer);
+                    allPips.setPossibleMoves(buffer);
+                    n += allPips.hasPossibleMoves() ? 1 : 0;
+                }
+                return n;
+            });
+
+            ArrayList<Play> plays = new ArrayList<>();
+            for (int[] roll : ROLLS)
+                plays.addAll(MoveGenerator.generatePlays(position, Game.Color.BLACK, roll));
+
+            names.put("Position.executeMove/" + key, () -> {
+                long n = 0;
+                for (Play play : plays) {
+                    Position next = new Position(position);
+                    for (Move move : play.getMoves())
+                        next.executeMove(move);
+                    n += next.getKey();
+                }
+                return n;
+            });
+
+            Position scratch = new Position(position);
+            long[] undos = new long[4];
+
+            names.put("Position.unmakeMove/" + key, () -> {
+                long n = 0;
+                for (Play play : plays) {
+                    int made = 0;
+                    for (Move move : play.getMoves())
+                        undos[made++] = scratch.executeMove(move);
+                    n += scratch.getKey();
+                    while (made > 0)
+                        scratch.unmakeMove(undos[--made]);
+                }
+                return n;
+            });
+
+            // One evaluation per operation, cycling through the positions after each play
+            Position[] after = new Position[plays.size()];
+            for (int i = 0; i < after.length; i++)
+                after[i] = plays.get(i).getPosition();
+            int[] next = new int[1];
+
+            names.put("NeuralEvaluator.evaluate/" + key, () -> {
+                Position p = after[next[0]++ % after.length];
+                return (long) (1000 * network.evaluate(p, Game.Color.BLACK));
+            });
+
+            names.put("HeuristicEvaluator.evaluate/" + key, () -> {
+                Position p = after[next[0]++ % after.length];
+                return (long) (1000 * heuristic.evaluate(p, Game.Color.BLACK));
+            });
+
+            names.put("PositionId.encodePosition/" + key, () -> {
+                Position p = after[next[0]++ % after.length];
+                return PositionId.encodePosition(p, Game.Color.WHITE).charAt(0);
+            });
+
+            String[] ids = new String[after.length];
+            for (int i = 0; i < ids.length; i++)
+                ids[i] = PositionId.encodePosition(after[i], Game.Color.WHITE);
+            Position decoded = new Position();
+
+            names.put("PositionId.decodePosition/" + key, () -> {
+                PositionId.decodePosition(ids[next[0]++ % ids.length], Game.Color.WHITE, decoded);
+                return decoded.getKey();
+            });
+        }
+
+        Dice dice = new Dice();
+        names.put("Dice.randomRoll", () -> {
+            dice.randomRoll();
+            return dice.size();
+        });
+
+        // Board waiting for black's move (roll button clicked)
+        Board board = new Board(true, true);
+        board.setMouseClick(true);
+        board.setMousePos(new Point(528, 310));
+        Point[] points = new Point[64];
+        for (int i = 0; i < points.length; i++)
+            points[i] = new Point(13 + (i * 97) % 754, 13 + (i * 53) % 594);
+
+        names.put("Board.handleMouse", () -> {
+            for (Point point : points)
+                board.setMousePos(point);
+            return board.getGame().getCurrentGameState();
+        });
+
+        names.put("Board.updateGame", () -> {
+            board.updateGame();
+            return board.getGame().getCurrentGameState();
+        });
+    }
+
+    /**
+     * Driver method.
+     *
+     * @param args names (or parts of names) of benchmarks to run; all if none
+     */
+    public static void main(String[] args) {
+        LinkedHashMap<String, Body> benchmarks = new LinkedHashMap<>();
+        addBenchmarks(benchmarks);
+        System.out.println("NeuralEvaluator kernel: " + NeuralEvaluator.getKernelName());
+
+        for (String name : benchmarks.keySet()) {
+            boolean selected = args.length == 0;
+            for (String arg : args)
+                selected |= name.contains(arg);
+
+            if (selected)
+                measure(name, benchmarks.get(name));
+        }
+    }
+}
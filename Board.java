@@ -5,193 +5,185 @@ import java.util.*;
 /**
  * Class representing the board of the game.
  *
- * Mostly composed of numbers and flags and logic, but corresponds directly with the dimensions of BoardPanel.
+ * Adapts a Game (rules and game loop) to the mouse and the views, and corresponds directly with the dimensions of BoardPanel.
  */
 public class Board implements Serializable {
 
-	public enum Color {
-		BLACK, WHITE, NONE
-	}
+    // Search limits of the computer player
+    private static final int COMPUTER_DEPTH = 3;
+    private static final long COMPUTER_TIME = 1500;
 
-	public enum Event {
-		 BLACK_DICE_ROLL, BLACK_MOVE, BLACK_END_TURN, WHITE_DICE_ROLL, WHITE_MOVE, WHITE_END_TURN
-	}
+    // Whole board, and the band between the rows of pips in which the text is drawn
+    private static final Rectangle BOARD_AREA = new Rectangle(0, 0, Images.BOARD_WIDTH, Images.BOARD_HEIGHT),
+            TEXT_AREA = new Rectangle(0, 236, Images.BOARD_WIDTH, 148);
+
+    // Text styles (made once rather than on every paint)
+    private static final Font EVENT_FONT = new Font("Franklin Gothic", Font.BOLD, 32),
+            INFO_FONT = new Font("Franklin Gothic", Font.PLAIN, 14);
+    private static final java.awt.Color TEXT_COLOR = new java.awt.Color(76, 66, 32);
 
 	/*
 	 * Variable Dictionary
 	 *
-	 * LOOP                  - list of game states
-	 *
-	 * currentGameState      - index within LOOP representing the current game state
+	 * game                  - the game being played
 	 * eventString           - string to display on board for current game state
 	 * boardTextImage        - image key of the board's text (pip numbering)
 	 *
 	 * allPips               - instance of container class of all pips on the board
-	 * dice                  - instance of dice object
+	 * diceView              - instance of dice view object
 	 *
-	 * hitboxes              - list of all hitboxes in the board
+	 * hitboxes              - index of all hitboxes in the board, and of the pips they belong to
 	 * mousePos              - location of the mouse (point (X, Y) relative to the boardPanel, corresponds to the board directly)
 	 * mouseClick            - flag indicating if the mouse is currently clicked
 	 *
 	 * hitboxHovered         - pointer to the hitbox currently hovered
 	 * hitboxClicked         - pointer to the hitbox currently clicked
 	 * targetPip             - pointer to the pip currently selected by mouse
-	 * targetMoves           - list of moves to the targetPip
+	 * targetMoves           - list of moves to the targetPip (reused for every pip)
+	 * targetIndex           - index within targetMoves of the move currently highlighted
+	 *
+	 * players               - whether each colour is played by a person (indexed by Game.Color ordinal)
+	 * computer              - agent which chooses the plays of the computer (made when first needed)
+	 * computerString        - report of the computer's last search
+	 *
+	 * drawnBoardText        - board text when the changed areas were last collected (null if never)
+	 * drawnTextState        - event string, computer string and statistics when the changed areas were last collected
+	 * drawnDiceState        - dice when the changed areas were last collected
+	 * staticLayer           - background, board text and pips composited into one image (null until first drawn)
+	 * staticLayerText       - board text in the static layer
 	 */
 
-    public static final LinkedList<Event> LOOP = generateGameLoop();
-
-    private int currentGameState;
+    private Game game;
 	private String eventString = "";
 	private Images.k boardTextImage;
 	
 	private AllPips allPips;
-	private Dice dice;
+	private DiceView diceView;
 
-	private ArrayList<Hitbox> hitboxes;
+	private HitboxIndex hitboxes;
 	private Point mousePos;
 	private boolean mouseClick;
 
     private Hitbox hitboxHovered, hitboxClicked;
 	private Pip targetPip;
-	private LinkedList<Move> targetMoves;
+	private MoveList targetMoves = new MoveList();
+	private int targetIndex;
+
+	private boolean[] players;
+	private transient Agent computer;
+	private String computerString = "";
+
+	private transient Images.k drawnBoardText;
+	private transient int drawnTextState, drawnDiceState;
+	private transient Image staticLayer;
+	private transient Images.k staticLayerText;
 
 	public Board() {
 		super();
 	}
 
     /**
-     * Constructs a new board. (AI functionality currently not implemented)
+     * Constructs a new board.
      *
-     * @param black whether black is player or AI
-     * @param white whether black is player or AI
+     * @param black true if black is played by a person, false if by the computer
+     * @param white true if white is played by a person, false if by the computer
      */
 	public Board(boolean black, boolean white) {
-		allPips = new AllPips();
+		this(new Game(), black, white);
+	}
+
+    /**
+     * Constructs a new board for a game in progress, such as one read from a save file.
+     *
+     * @param game the game
+     * @param black true if black is played by a person, false if by the computer
+     * @param white true if white is played by a person, false if by the computer
+     */
+	public Board(Game game, boolean black, boolean white) {
+		this.game = game;
+		players = new boolean[]{ black, white };
+		allPips = new AllPips(game.getPosition());
 
-		dice = new Dice();
-		dice.getHitbox().setHoverable(true);
-		dice.getHitbox().setClickable(true);
+		diceView = new DiceView();
+		diceView.getHitbox().setHoverable(true);
+		diceView.getHitbox().setClickable(true);
 
         // Initialise hitbox list
-		hitboxes = new ArrayList<>();
-        hitboxes.add(dice.getHitbox());
+		hitboxes = new HitboxIndex(Images.BOARD_WIDTH, Images.BOARD_HEIGHT);
+        hitboxes.add(diceView.getHitbox(), null);
         for (Pip p : allPips.getAsArrayList())
-            hitboxes.add(p.getHitbox());
+            hitboxes.add(p.getHitbox(), p);
 
         targetPip = null;
-        targetMoves = null;
 
-        // Start the game
-        currentGameState = 0;
-        prepareGameState(currentGameState);
+        // Start (or resume) the game
+        prepareGameState(game.getCurrentGameState());
 	}
 
     /**
-     * Prepares the game loop. Game states are ordered in the list.
-     *
-     * @return the game loop
-     */
-	private static LinkedList<Event> generateGameLoop(){
-		LinkedList<Event> out = new LinkedList<>();
-		out.add(Event.BLACK_DICE_ROLL);
-		out.add(Event.BLACK_MOVE);
-		out.add(Event.BLACK_END_TURN);
-		out.add(Event.WHITE_DICE_ROLL);
-		out.add(Event.WHITE_MOVE);
-		out.add(Event.WHITE_END_TURN);
-		
-		return out;
-	}
-
-    /**
-     * Main game logic. Ensures all events of current game state are executed before proceeding to the next state.
+     * Main game logic. Advances the game loop, then prepares the board for the new game state if it changed.
      */
     public void updateGame() {
-        boolean proceedToNextState = false;
+        int previousGameState = game.getCurrentGameState();
 
-        // Perform state-specific checks
-        switch (LOOP.get(currentGameState)) {
+        // Announce the winner, if any
+        if (getWinner() != Game.Color.NONE)
+            eventString = getWinner() + " WINS!!!";
 
-            case BLACK_DICE_ROLL:
-            case WHITE_DICE_ROLL:
-                proceedToNextState = !dice.getHitbox().isClickable();
-                break;
+        game.updateGame();
 
-            case BLACK_MOVE:
-                if (getWinner() == Color.BLACK) {
-                    eventString = "BLACK WINS!!!";
-                } else {
-                    proceedToNextState = dice.size() == 0 || !allPips.hasPossibleMoves();
-                }
-                break;
-
-            case WHITE_MOVE:
-                if (getWinner() == Color.WHITE) {
-                    eventString = "WHITE WINS!!!";
-                } else {
-                    proceedToNextState = dice.size() == 0 || !allPips.hasPossibleMoves();
-                }
-                break;
-
-            case BLACK_END_TURN:
-                if (getWinner() == Color.BLACK) {
-                    eventString = "BLACK WINS!!!";
-                } else {
-                    proceedToNextState = true;
-                }
-                break;
-
-            case WHITE_END_TURN:
-                if (getWinner() == Color.WHITE) {
-                    eventString = "WHITE WINS!!!";
-                } else {
-                    proceedToNextState = true;
-                }
-                break;
-
-        }
-
-        // Stay on current state until exit condition met
-        prepareGameState(proceedToNextState ? (currentGameState = (currentGameState + 1) % LOOP.size()) : currentGameState);
+        if (game.getCurrentGameState() != previousGameState)
+            prepareGameState(game.getCurrentGameState());
     }
 
     /**
-     * Do preparations for the specified game state.
+     * Do preparations of the views for the specified game state.
      *
      * @param gameState game state
      */
 	public void prepareGameState(int gameState) {
-		switch (LOOP.get(gameState)) {
+		switch (Game.LOOP.get(gameState)) {
 
             case BLACK_DICE_ROLL:
                 eventString = "ROLL DICE";
                 boardTextImage = Images.k.BOARD_TEXT_BLACK;
-                dice.getHitbox().setHoverable(true);
-                dice.getHitbox().setClickable(true);
+                diceView.getHitbox().setHoverable(!isComputerTurn());
+                diceView.getHitbox().setClickable(!isComputerTurn());
                 break;
 
             case WHITE_DICE_ROLL:
                 eventString = "ROLL DICE";
                 boardTextImage = Images.k.BOARD_TEXT_WHITE;
-                dice.getHitbox().setHoverable(true);
-                dice.getHitbox().setClickable(true);
+                diceView.getHitbox().setHoverable(!isComputerTurn());
+                diceView.getHitbox().setClickable(!isComputerTurn());
                 break;
 
             case BLACK_MOVE:
                 eventString = "BLACK'S TURN";
-                dice.getHitbox().setHoverable(false);
-                dice.getHitbox().setClickable(false);
+                diceView.getHitbox().setHoverable(false);
+                diceView.getHitbox().setClickable(false);
+                if (isComputerTurn()) {
+                    eventString = "COMPUTER THINKING";
+                    allPips.clearPossibleMoves();
+                    setHitboxes(false);
+                    break;
+                }
                 allPips.setAllHitboxes(true);
-                allPips.calculatePossibleMoves(dice.getAllDiceCombinations(), Color.BLACK);
+                allPips.setPossibleMoves(game.getPossibleMoves());
                 break;
 
             case WHITE_MOVE:
                 eventString = "WHITE'S TURN";
-                dice.getHitbox().setHoverable(false);
-                dice.getHitbox().setClickable(false);
+                diceView.getHitbox().setHoverable(false);
+                diceView.getHitbox().setClickable(false);
+                if (isComputerTurn()) {
+                    eventString = "COMPUTER THINKING";
+                    allPips.clearPossibleMoves();
+                    setHitboxes(false);
+                    break;
+                }
                 allPips.setAllHitboxes(true);
-                allPips.calculatePossibleMoves(dice.getAllDiceCombinations(), Color.WHITE);
+                allPips.setPossibleMoves(game.getPossibleMoves());
                 break;
 
             case BLACK_END_TURN:
@@ -210,24 +202,90 @@ public class Board implements Serializable {
      * @param g the graphics environment
      */
 	public void draw(Graphics g) {
-		// Board (background)
-		g.drawImage(Images.getImage(Images.k.BOARD), 0, 0, Images.BOARD_WIDTH, Images.BOARD_HEIGHT, null);
-
-		// Text (pip labels)
-        g.drawImage(Images.getImage(boardTextImage), 0, 0, Images.BOARD_WIDTH, Images.BOARD_HEIGHT, null);
+		// Board, text and pips, which only change with the board text
+		if (staticLayer == null || staticLayerText != boardTextImage)
+		    updateStaticLayer();
+		g.drawImage(staticLayer, 0, 0, null);
 
-		// Pips
+		// Pips (highlights and stones)
 		allPips.draw(g);
 
 		// Dice
-		dice.draw(g);
+		diceView.draw(g, game.getDice());
 
         // Event String
-        g.setFont(new Font("Franklin Gothic", Font.BOLD, 32));
-        g.setColor(new java.awt.Color(76, 66, 32));
+        g.setFont(EVENT_FONT);
+        g.setColor(TEXT_COLOR);
         g.drawString(eventString, 40, 326);
+
+        // Computer's last search
+        g.setFont(INFO_FONT);
+        g.drawString(computerString, 40, 350);
+
+        // Statistics of each player
+        g.drawString(getStatsString(Game.Color.BLACK), 40, 256);
+        g.drawString(getStatsString(Game.Color.WHITE), 40, 274);
 	}
 
+    /**
+     * Composites the parts of the board which do not change during a turn (background, board text and pips) into one
+     * image, so that they take a single draw. Method should only be called from inside draw().
+     */
+    private void updateStaticLayer() {
+        if (staticLayer == null)
+            staticLayer = Images.createCompatibleImage(Images.BOARD_WIDTH, Images.BOARD_HEIGHT, Transparency.OPAQUE);
+        staticLayerText = boardTextImage;
+
+        Graphics g = staticLayer.getGraphics();
+        g.drawImage(Images.getImage(Images.k.BOARD), 0, 0, Images.BOARD_WIDTH, Images.BOARD_HEIGHT, null);
+        g.drawImage(Images.getImage(boardTextImage), 0, 0, Images.BOARD_WIDTH, Images.BOARD_HEIGHT, null);
+        allPips.drawStatic(g);
+        g.dispose();
+    }
+
+    /**
+     * Collects the areas of the board which would be drawn differently since the last call, so that only they need to
+     * be repainted: pips whose stones, hover or highlights changed, the dice, and the text. The first call (and any
+     * change of the board text) gives the whole board.
+     *
+     * @return list of areas (empty if nothing changed)
+     */
+    public ArrayList<Rectangle> getChangedAreas() {
+        ArrayList<Rectangle> areas = new ArrayList<>();
+
+        int textState = Objects.hash(eventString, computerString, allPips.getPosition().getKey());
+        int diceState = diceView.getDrawState(game.getDice());
+
+        if (drawnBoardText != boardTextImage || drawnBoardText == null) {
+            drawnBoardText = boardTextImage;
+            areas.add(BOARD_AREA);
+            allPips.addChangedAreas(new ArrayList<>());
+        } else {
+            allPips.addChangedAreas(areas);
+            if (textState != drawnTextState)
+                areas.add(TEXT_AREA);
+            else if (diceState != drawnDiceState)
+                areas.add(diceView.getDrawBounds());
+        }
+
+        drawnTextState = textState;
+        drawnDiceState = diceState;
+        return areas;
+    }
+
+    /**
+     * Gets a line of statistics of a player: pip count, stones borne off, on the bar, and blots.
+     *
+     * @param color colour of the player
+     * @return the statistics
+     */
+    private String getStatsString(Game.Color color) {
+        Position position = allPips.getPosition();
+
+        return String.format("%s  pips %d  off %d  bar %d  blots %d", color, position.getPipCount(color),
+                position.getBorneOffCount(color), position.getBarCount(color), position.getBlotCount(color));
+    }
+
     /**
      * Sets the position of the mouse.
      *
@@ -251,24 +309,25 @@ public class Board implements Serializable {
      * Called from BoardPanel when the mouse is moved or clicked. Updates flags and then handles special logic. (Custom handling of mouse "events")
      */
 	public void handleMouse() {
-		// Reset pointers
+		// Reset pointers (only the hovered hitbox can have been hovered)
+		if (hitboxHovered != null)
+		    hitboxHovered.setHover(false);
 		hitboxHovered = null;
 		hitboxClicked = null;
 
-		// Check for mouse collisions and update hitboxes and pointers accordingly
-		for (Hitbox h : hitboxes) {
+		// Check for a mouse collision with the hitbox under the mouse and update it and the pointers accordingly
+		Hitbox h = hitboxes.getHitbox(mousePos);
 
-		    // If hovered
-			if (h.checkHover(mousePos)) {
-				hitboxHovered = h;
+		// If hovered
+		if (h != null && h.checkHover(mousePos)) {
+			hitboxHovered = h;
 
-				// Set click
-				h.setClick(mouseClick && h.isHovered() && h.isClickable());
+			// Set click
+			h.setClick(mouseClick && h.isHovered() && h.isClickable());
 
-				// If clicked
-				if (h.isClicked()) {
-					hitboxClicked = h;
-				}
+			// If clicked
+			if (h.isClicked()) {
+				hitboxClicked = h;
 			}
 		}
 
@@ -276,7 +335,7 @@ public class Board implements Serializable {
         mouseClick = false;
 
 		// Exit if game is over
-		if (getWinner() != Color.NONE)
+		if (getWinner() != Game.Color.NONE)
 		    return;
 
         // Do the logic
@@ -297,36 +356,57 @@ public class Board implements Serializable {
      * Cycles through the potential moves.
      */
     private void cycleThroughPotentialMoves() {
-        if (targetMoves == null || targetMoves.isEmpty()) {
+        if (targetMoves.isEmpty()) {
             allPips.highlightPossibleEnds();
             return;
         }
 
         // Iterate
-        targetMoves.addLast(targetMoves.pop());
-        allPips.highlightMove(targetMoves.peek());
+        targetIndex = (targetIndex + 1) % targetMoves.size();
+        allPips.highlightMove(targetMoves.get(targetIndex));
+    }
+
+    /**
+     * Takes back the last move of the current turn, if a person is to move, and prepares the views for the dice given
+     * back.
+     *
+     * @return true if a move was taken back
+     */
+    public boolean takeBack() {
+        if (isComputerTurn() || !game.takeBack())
+            return false;
+
+        targetPip = null;
+        targetMoves.clear();
+        allPips.highlightNothing();
+        prepareGameState(game.getCurrentGameState());
+        return true;
     }
 
     /**
      * Given mouse input, performs any logic which is not self-contained in a hitbox object.
      */
     public void mouseLogic() {
-        if (hitboxHovered == null || hitboxHovered == dice.getHitbox())
+        // Roll the dice if the roll button is clicked
+        if (hitboxClicked == diceView.getHitbox()) {
+            game.rollDice();
+            diceView.getHitbox().setClickable(false);
+            diceView.getHitbox().setClick(false);
+            return;
+        }
+
+        if (hitboxHovered == null || hitboxHovered == diceView.getHitbox())
             return;
 
         // Perform target move updates if currently hovered pip changes
-        Pip targetPip2 = allPips.getAssociatedPip(hitboxHovered, true);
+        Pip targetPip2 = hitboxes.getPip(hitboxHovered);
 
         if (targetPip2 != targetPip) {
             targetPip = targetPip2;
 
             // Get list of possible moves to the hovered pip
-            HashSet<Move> temp = allPips.getPossibleMovesTo(targetPip);
-
-            if (temp == null)
-                targetMoves = new LinkedList<>();
-            else
-                targetMoves = new LinkedList<>(temp);
+            allPips.getPossibleMovesTo(targetPip, targetMoves);
+            targetIndex = -1;
 
             cycleThroughPotentialMoves();
         }
@@ -337,15 +417,156 @@ public class Board implements Serializable {
         if (targetMoves.isEmpty() || hitboxClicked == null)
             return;
 
-        // Move the stone
-        allPips.executeMove(targetMoves.peek());
+        // Move the stone and "use up" associated dice
+        game.executeMove(targetMoves.getMove(targetIndex));
         targetPip = null;
-
-        // Update dice object ("use up" associated dice)
-        dice.removeDiceInMove(targetMoves.peek());
+        targetMoves.clear();
 
         // Reset all graphics in allPips
         allPips.highlightNothing();
+
+        // Recalculate possible moves with the remaining dice
+        prepareGameState(game.getCurrentGameState());
+    }
+
+    /**
+     * Checks whether a colour is played by a person.
+     *
+     * @param color the colour
+     * @return true if played by a person, false if by the computer
+     */
+    public boolean isPlayer(Game.Color color) {
+        return players[color.ordinal()];
+    }
+
+    /**
+     * Checks whether the computer is to play.
+     *
+     * @return true if the game is not over and the player to move is played by the computer
+     */
+    public boolean isComputerTurn() {
+        return !game.isGameOver() && !players[game.getTurn().ordinal()];
+    }
+
+    /**
+     * Advances the game through every state which needs no person: ends of turns, the computer's rolls, and the
+     * computer's turns without a legal move.
+     *
+     * @return true if the computer must now choose a play (see findComputerPlay())
+     */
+    public boolean updateComputer() {
+        while (!game.isGameOver()) {
+            int previousGameState = game.getCurrentGameState();
+
+            switch (game.getEvent()) {
+
+                case BLACK_DICE_ROLL:
+                case WHITE_DICE_ROLL:
+                    if (!isComputerTurn())
+                        return false;
+                    game.rollDice();
+                    break;
+
+                case BLACK_MOVE:
+                case WHITE_MOVE:
+                    if (!isComputerTurn())
+                        return false;
+                    if (game.getDice().size() > 0 && game.hasPossibleMoves())
+                        return true;
+                    break;
+
+                default:
+                    break;
+            }
+
+            updateGame();
+
+            if (game.getCurrentGameState() == previousGameState)
+                return false;
+        }
+
+        return false;
+    }
+
+    /**
+     * Chooses the computer's play. Does not change the board, so it may be called off the event dispatch thread
+     * while the board is only drawn.
+     *
+     * @param plays the legal plays (see Game.getPlays())
+     * @return the chosen play
+     */
+    public Play findComputerPlay(ArrayList<Play> plays) {
+        if (computer == null)
+            computer = new ExpectiminimaxAgent(BearoffEvaluator.create(NeuralEvaluator.loadDefault(new HeuristicEvaluator())), COMPUTER_DEPTH, COMPUTER_TIME);
+
+        Play play = computer.choosePlay(game, plays);
+
+        if (computer instanceof ExpectiminimaxAgent) {
+            ExpectiminimaxAgent agent = (ExpectiminimaxAgent) computer;
+            computerString = String.format("Computer: depth %d, %d nodes (%.0f nodes/s)",
+                    agent.getDepth(), agent.getNodes(), agent.getNodesPerSecond());
+        }
+
+        return play;
+    }
+
+    /**
+     * Makes the computer's play and advances the game.
+     *
+     * @param play the play (see findComputerPlay())
+     */
+    public void executeComputerPlay(Play play) {
+        game.executePlay(play);
+        allPips.highlightNothing();
+        updateGame();
+    }
+
+    /**
+     * Makes a rollout of the current position: the stones of allPips, for the player to move, with the dice they have
+     * left to play (none if they are yet to roll).
+     *
+     * @param trials maximum number of trials
+     * @param seed seed of the dice
+     * @return the rollout (not yet started)
+     */
+    public Rollout makeRollout(int trials, long seed) {
+        Game.Color turn = game.getTurn();
+        int[] dice = new int[0];
+
+        switch (game.getEvent()) {
+            case BLACK_MOVE:
+            case WHITE_MOVE:
+                dice = game.getDice().getValues();
+                break;
+
+            case BLACK_END_TURN:
+            case WHITE_END_TURN:
+                turn = (turn == Game.Color.BLACK) ? Game.Color.WHITE : Game.Color.BLACK;
+                break;
+
+            default:
+                break;
+        }
+
+        return new Rollout(allPips.getPosition(), turn, dice, trials, Runtime.getRuntime().availableProcessors(), seed);
+    }
+
+    /**
+     * Gets the game being played.
+     *
+     * @return the game
+     */
+    public Game getGame() {
+        return game;
+    }
+
+    /**
+     * Gets the key of the current game position: stones, side to move, and dice left to play (see Zobrist).
+     *
+     * @return the key
+     */
+    public long getPositionKey() {
+        return game.getPositionKey();
     }
 
     /**
@@ -353,8 +574,8 @@ public class Board implements Serializable {
      *
      * @return color of the winner
      */
-    public Board.Color getWinner() {
-    	return allPips.checkWinner();
+    public Game.Color getWinner() {
+    	return game.getWinner();
     }
 
     /**
@@ -363,7 +584,7 @@ public class Board implements Serializable {
      * @return whether game is over
      */
     public boolean getGameOver() {
-        return getWinner() != Color.NONE;
+        return game.isGameOver();
     }
 
     /**
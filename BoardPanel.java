@@ -2,6 +2,7 @@ import javax.swing.*;
 import java.awt.*;
 import java.awt.event.*;
 import java.io.Serializable;
+import java.util.ArrayList;
 
 /**
  * Class representing the panel where the board is drawn.
@@ -9,16 +10,22 @@ import java.io.Serializable;
 
 public class BoardPanel extends JPanel implements Serializable, MouseListener, MouseMotionListener {
 
+    // Style of the win screen
+    private static final Color WIN_BACKGROUND = new Color(100, 150, 170);
+    private static final Font WIN_FONT = new Font("Franklin Gothic", Font.ITALIC, 32);
+
     /*
      * Variable Dictionary
      *
      * board    - board
-     * winner   - color of the winning player (Board.Color.NONE if game still in progress)
+     * winner   - color of the winning player (Game.Color.NONE if game still in progress)
      * gameOver - whether the game is over
+     * computer - background search for the computer's play (null if the computer is not thinking)
      */
     private Board board;
-    private Board.Color winner;
+    private Game.Color winner;
     private boolean gameOver;
+    private transient SwingWorker<Play, Void> computer;
 
     /**
      * Constructs a new board panel.
@@ -28,13 +35,22 @@ public class BoardPanel extends JPanel implements Serializable, MouseListener, M
     }
 
     /**
-     * Constructs a new board panel. (AI functionality currently not implemented)
+     * Constructs a new board panel.
      *
-     * @param black true if player black is player, false if player black is AI
-     * @param white true if player white is player, false if player white is AI
+     * @param black true if player black is player, false if player black is the computer
+     * @param white true if player white is player, false if player white is the computer
      */
     public BoardPanel(boolean black, boolean white) {
-        board = new Board(black, white);
+        this(new Board(black, white));
+    }
+
+    /**
+     * Constructs a new board panel for a board, such as one read from a save file.
+     *
+     * @param board the board
+     */
+    public BoardPanel(Board board) {
+        this.board = board;
 
         setLayout(new FlowLayout());
 
@@ -43,11 +59,62 @@ public class BoardPanel extends JPanel implements Serializable, MouseListener, M
         setMaximumSize(boardSize);
         setPreferredSize(boardSize);
 
-        winner = Board.Color.NONE;
+        winner = Game.Color.NONE;
         gameOver = false;
 
         addMouseListener(this);
         addMouseMotionListener(this);
+
+        playComputer();
+    }
+
+    /**
+     * Lets the computer play if it is its turn. The play is chosen on a background thread, so the window stays
+     * responsive, then made on the event dispatch thread; the computer keeps playing until a person must act.
+     */
+    private void playComputer() {
+        if (computer != null || !board.updateComputer())
+            return;
+
+        ArrayList<Play> plays = board.getGame().getPlays();
+
+        computer = new SwingWorker<Play, Void>() {
+            @Override
+            protected Play doInBackground() {
+                return board.findComputerPlay(plays);
+            }
+
+            @Override
+            protected void done() {
+                computer = null;
+                try {
+                    board.executeComputerPlay(get());
+                } catch (Exception e) {
+                    System.out.println(e.toString());
+                    return;
+                }
+
+                repaint();
+                playComputer();
+            }
+        };
+        computer.execute();
+
+        repaint();
+    }
+
+    /**
+     * Repaints only the areas of the board which changed, each on its own (a single repaint would merge them into one
+     * area covering all of them). The whole panel is repainted once the game is over.
+     */
+    private void repaintChanged() {
+        if (board.getGameOver() || gameOver) {
+            repaint();
+            return;
+        }
+
+        for (Rectangle area : board.getChangedAreas())
+            paintImmediately(area);
     }
 
     /**
@@ -78,31 +145,40 @@ public class BoardPanel extends JPanel implements Serializable, MouseListener, M
      * @param g the graphics environment
      */
     private void drawWinScreen(Graphics g) {
-        g.setColor(new Color(100, 150, 170));
+        g.setColor(WIN_BACKGROUND);
         g.fillRect(0, 0, this.getWidth(), this.getHeight());
         String winnerString;
 
-        if (winner == Board.Color.BLACK)
+        if (winner == Game.Color.BLACK)
             winnerString = "BLACK WINS!!!";
-        else if (winner == Board.Color.WHITE)
+        else if (winner == Game.Color.WHITE)
             winnerString = "WHITE WINS!!!";
         else
             winnerString = "NO WINNER";
 
         g.setColor(Color.BLACK);
-        g.setFont(new Font("Franklin Gothic", Font.ITALIC, 32));
+        g.setFont(WIN_FONT);
         g.drawString(winnerString, this.getWidth() / 2 - 100, this.getHeight() / 2 + 80);
 
         drawDiamond(200, 110, 400, 180, g);
         drawDiamond(580, 110, 400, 180, g);
     }
 
+    /**
+     * Gets the board.
+     *
+     * @return the board
+     */
+    public Board getBoard() {
+        return board;
+    }
+
     /**
      * Sets the winner of the game.
      *
      * @param winner color of the winning player
      */
-    public void setWinner(Board.Color winner) {
+    public void setWinner(Game.Color winner) {
         this.winner = winner;
     }
 
@@ -146,8 +222,9 @@ public class BoardPanel extends JPanel implements Serializable, MouseListener, M
     public void mouseMoved(MouseEvent e) {
         board.setMousePos(e.getPoint());
         board.handleMouse();
+        playComputer();
 
-        repaint();
+        repaintChanged();
     }
 
     @Override
@@ -158,8 +235,9 @@ public class BoardPanel extends JPanel implements Serializable, MouseListener, M
             board.handleMoveCycle();
 
         board.handleMouse();
+        playComputer();
 
-        repaint();
+        repaintChanged();
     }
 
     @Override
@@ -1,32 +1,27 @@
-import java.awt.*;
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Arrays;
 
 /**
  * Class representing some dice in a dice roll.
  */
 public class Dice implements Serializable {
 
-    private static final int X = 378, Y = 294, WIDTH = 300, HEIGHT = 32;
-    private static final ArrayList<ArrayList<Die>> DICE_PAIRS = generatePairs();
-
     /*
      * Variable Dictionary
      *
      * diceList - list of Die objects in the current dice roll
-     * index    - index within DICE_PAIRS (currently not used, but planned for AI)
-     * hitbox   - hitbox of this object
+     * index    - number of the next roll given by setNextPair() (see Rolls)
+     * values   - arrays of the values of the dice, one for each number of dice, reused by getValues()
      */
     private ArrayList<Die> diceList;
     private int index = 0;
-    private Hitbox hitbox;
+    private int[][] values = new int[5][];
 
     /**
      * Constructs a new empty dice object.
      */
     public Dice() {
-        hitbox = new Hitbox(X, Y, WIDTH, HEIGHT);
-
         diceList = new ArrayList<>();
     }
 
@@ -45,107 +40,106 @@ public class Dice implements Serializable {
     }
 
     /**
-     * Generates all possible combinations of dice (assigned to DICE_PAIRS).
+     * Constructs a new dice object with the given values.
      *
-     * @return combinations of dice
+     * @param values values of the dice
      */
-    private static ArrayList<ArrayList<Die>> generatePairs() {
-        ArrayList<ArrayList<Die>> output = new ArrayList<>();
-
-        for (int i = 1; i <= 6; i++) {
-            for (int j = i; j <= 6; j++) {
-                ArrayList<Die> pair = new ArrayList<>();
-                pair.add(new Die(i));
-                pair.add(new Die(j));
-                output.add(pair);
-            }
-        }
+    public Dice(int[] values) {
+        this();
 
-        return output;
+        for (int value : values)
+            diceList.add(new Die(value));
     }
 
     /**
-     * Gets a random roll.
+     * Gets a random roll from the shared source (see RandomDiceSource).
      */
     public void randomRoll() {
-        diceList.clear();
-
-        int r = (int) (Math.random() * DICE_PAIRS.size());
+        randomRoll(RandomDiceSource.getShared());
+    }
 
-        diceList = new ArrayList<>(DICE_PAIRS.get(r));
+    /**
+     * Gets a roll from the given source of dice.
+     * Each die is rolled separately, so each double comes up 1 in 36 rolls and each other pair 2 in 36.
+     *
+     * @param source source of the dice
+     */
+    public void randomRoll(DiceSource source) {
+        diceList.clear();
 
-        // Half the time, reverse pair order
-        if (Math.random() < 0.5) {
-            diceList.add(diceList.remove(0));
-        }
+        diceList.add(new Die(source.nextDie()));
+        diceList.add(new Die(source.nextDie()));
 
         // Double list if pair is double roll
         if (diceList.get(0).equals(diceList.get(1))) {
-            diceList.addAll(2, new ArrayList<>(DICE_PAIRS.get(r)));
+            diceList.add(new Die(diceList.get(0)));
+            diceList.add(new Die(diceList.get(0)));
         }
     }
 
     /**
-     * Assigns the next pair in the DICE_PAIRS list to diceList.
+     * Removes all dice from this list.
+     */
+    public void clear() {
+        diceList.clear();
+    }
+
+    /**
+     * Assigns the next of the 21 distinct rolls (see Rolls) to diceList, as a pair of dice.
      */
     public void setNextPair() {
-        diceList = new ArrayList<>(DICE_PAIRS.get(index++ % DICE_PAIRS.size()));
+        int roll = index++ % Rolls.COUNT;
+
+        diceList.clear();
+        diceList.add(new Die(Rolls.getLow(roll)));
+        diceList.add(new Die(Rolls.getHigh(roll)));
     }
 
     /**
-     * Calculates all unique dice combinations. Dice are unique if their values are different.
+     * Gets the values of the dice in this list. The array is reused for every call with the same number of dice, so
+     * nothing is allocated; it must not be changed, and is only valid until the dice change (clone it to keep it).
      *
-     * @return all dice combinations.
+     * @return values of the dice
      */
-    public ArrayList<ArrayList<Die>> getAllDiceCombinations() {
-        ArrayList<ArrayList<Die>> output = new ArrayList<>();
+    public int[] getValues() {
+        int size = diceList.size();
 
-        // If only one die
-        if (diceList.size() == 1) {
-            output.add(new ArrayList<>(diceList));
-            return output;
-        }
+        if (size >= values.length)
+            values = Arrays.copyOf(values, size + 1);
+        if (values[size] == null)
+            values[size] = new int[size];
 
-        // If double roll
-        if (diceList.get(0).equals(diceList.get(1))) {
+        int[] out = values[size];
+        for (int i = 0; i < size; i++)
+            out[i] = diceList.get(i).getValue();
 
-            // Add each combination (1 to n copies of the die value)
-            for (int i = diceList.size() - 1; i >= 0; i--) {
-                ArrayList<Die> temp = new ArrayList<>();
+        return out;
+    }
 
-                for (int j = 0; j <= i; j++) {
-                    temp.add(new Die(diceList.get(j)));
+    /**
+     * Removes the dice of the move from this list.
+     *
+     * @param move the move
+     */
+    public void removeDiceInMove(Move move) {
+        for (int i = 0; i < move.getDiceCount(); i++) {
+            for (int j = 0; j < diceList.size(); j++) {
+                if (diceList.get(j).getValue() == move.getDie(i)) {
+                    diceList.remove(j);
+                    break;
                 }
-
-                output.add(temp);
             }
-
-            return output;
         }
-
-        // If not double roll, add combinations: {d1, d2, d1 + d2}
-        ArrayList<Die> d1 = new ArrayList<>(), d2 = new ArrayList<>(), d1d2 = new ArrayList<>();
-
-        d1.add(diceList.get(0));
-        output.add(d1);
-
-        d2.add(diceList.get(1));
-        output.add(d2);
-
-        d1d2.addAll(diceList);
-        output.add(d1d2);
-
-        return output;
     }
 
     /**
-     * Removes the dice of the move from this list.
+     * Gives back the dice of a move which was taken back.
      *
      * @param move the move
      */
-    public void removeDiceInMove(Move move) {
-        for (Die die : move.getDiceToUse()) {
-            diceList.remove(die);
+    public void addDiceInMove(Move move) {
+        for (int i = 0; i < move.getDiceCount(); i++) {
+            diceList.add(new Die(move.getDie(i)));
         }
     }
 
@@ -157,38 +151,4 @@ public class Dice implements Serializable {
     public int size() {
         return diceList.size();
     }
-
-    /**
-     * Gets the hitbox.
-     *
-     * @return the hitbox
-     */
-    public Hitbox getHitbox() {
-        return hitbox;
-    }
-
-    /**
-     * Draws the dice object.
-     *
-     * @param g graphics environment
-     */
-    public void draw(Graphics g) {
-        // Update dice if clicked
-        if (hitbox.isClicked()) {
-            randomRoll();
-            hitbox.setClickable(false);
-            hitbox.setClick(false);
-        }
-
-        // Draw all dice, centred on right half of the board
-        for (int i = 0; i < diceList.size(); i++) {
-    	    diceList.get(i).draw(g, X + (WIDTH - Images.DIE_WIDTH * (diceList.size() * 2 - 1)) / 2 + 2 * i * Images.DIE_WIDTH, Y);
-        }
-
-        // Draw reroll button if dice are clickable
-        if (hitbox.isClickable()) {
-            g.drawImage(Images.getImage(Images.k.ROLL_BUTTON), X + (WIDTH - Images.ROLL_BUTTON_WIDTH) / 2, Y,
-                    Images.ROLL_BUTTON_WIDTH, Images.ROLL_BUTTON_HEIGHT, null);
-        }
-    }
 }
@@ -0,0 +1,15 @@
+/**
+ * Interface for anything which gives the values of dice as they are rolled.
+ *
+ * Sources: RandomDiceSource (random streams, seeded or not), TapeDiceSource (dice read from a file) and
+ * ManualDiceSource (dice entered by hand).
+ */
+public interface DiceSource {
+
+    /**
+     * Rolls one die.
+     *
+     * @return value of the die (1-6)
+     */
+    int nextDie();
+}
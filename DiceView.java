@@ -0,0 +1,81 @@
+import java.awt.*;
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * Class which draws the dice and holds the hitbox of the roll button.
+ */
+public class DiceView implements Serializable {
+
+    private static final int X = 378, Y = 294, WIDTH = 300, HEIGHT = 32;
+
+    // Image keys of the die faces, indexed by value
+    private static final Images.k[] DIE_IMAGES = {
+            null, Images.k.DIE_1, Images.k.DIE_2, Images.k.DIE_3, Images.k.DIE_4, Images.k.DIE_5, Images.k.DIE_6
+    };
+
+    /*
+     * Variable Dictionary
+     *
+     * hitbox - hitbox of this object
+     */
+    private Hitbox hitbox;
+
+    /**
+     * Constructs a new dice view.
+     */
+    public DiceView() {
+        hitbox = new Hitbox(X, Y, WIDTH, HEIGHT);
+    }
+
+    /**
+     * Gets the hitbox.
+     *
+     * @return the hitbox
+     */
+    public Hitbox getHitbox() {
+        return hitbox;
+    }
+
+    /**
+     * Gets the area the dice and the roll button are drawn in.
+     *
+     * @return the area
+     */
+    public Rectangle getDrawBounds() {
+        return new Rectangle(X, Y, WIDTH, Math.max(HEIGHT, Math.max(Images.DIE_HEIGHT, Images.ROLL_BUTTON_HEIGHT)));
+    }
+
+    /**
+     * Gets a value which changes whenever the dice would be drawn differently: their values and the roll button.
+     *
+     * @param dice the dice to draw
+     * @return the value
+     */
+    public int getDrawState(Dice dice) {
+        return 31 * Arrays.hashCode(dice.getValues()) + (hitbox.isClickable() ? 1 : 0);
+    }
+
+    /**
+     * Draws the dice.
+     *
+     * @param g graphics environment
+     * @param dice the dice to draw
+     */
+    public void draw(Graphics g, Dice dice) {
+        int[] values = dice.getValues();
+
+        // Draw all dice, centred on right half of the board
+        for (int i = 0; i < values.length; i++) {
+            g.drawImage(Images.getImage(DIE_IMAGES[values[i]]),
+                    X + (WIDTH - Images.DIE_WIDTH * (values.length * 2 - 1)) / 2 + 2 * i * Images.DIE_WIDTH, Y,
+                    Images.DIE_WIDTH, Images.DIE_HEIGHT, null);
+        }
+
+        // Draw reroll button if dice are clickable
+        if (hitbox.isClickable()) {
+            g.drawImage(Images.getImage(Images.k.ROLL_BUTTON), X + (WIDTH - Images.ROLL_BUTTON_WIDTH) / 2, Y,
+                    Images.ROLL_BUTTON_WIDTH, Images.ROLL_BUTTON_HEIGHT, null);
+        }
+    }
+}
@@ -1,4 +1,3 @@
-import java.awt.*;
 import java.io.Serializable;
 
 /**
@@ -10,17 +9,15 @@ public class Die implements Serializable {
      *
      * value  - point value of this die (1-6)
      * active - whether this die is currently active in the game
-     * image  - associated image key
      */
     private int value;
     private boolean active;
-    private Images.k image;
 
     /**
-     * Constructs a new die with a random value from 1 to 6.
+     * Constructs a new die with a random value from 1 to 6, rolled from the shared source (see RandomDiceSource).
      */
     public Die() {
-        this((int) (Math.random() * 6 + 1));
+        this(RandomDiceSource.getShared().nextDie());
     }
 
     /**
@@ -31,7 +28,6 @@ public class Die implements Serializable {
     public Die(int value) {
         this.value = value;
         active = true;
-        setImage();
     }
 
     /**
@@ -42,7 +38,6 @@ public class Die implements Serializable {
     public Die(Die other) {
         this.value = other.value;
         active = true;
-        setImage();
     }
 
     /**
@@ -72,43 +67,6 @@ public class Die implements Serializable {
         return active;
     }
 
-    /**
-     * Sets the image key associated with this die.
-     */
-    private void setImage() {
-        switch (value) {
-            case 1:
-                image = Images.k.DIE_1;
-                break;
-            case 2:
-                image = Images.k.DIE_2;
-                break;
-            case 3:
-                image = Images.k.DIE_3;
-                break;
-            case 4:
-                image = Images.k.DIE_4;
-                break;
-            case 5:
-                image = Images.k.DIE_5;
-                break;
-            case 6:
-                image = Images.k.DIE_6;
-                break;
-        }
-    }
-
-    /**
-     * Draws this die at the specified position.
-     *
-     * @param g graphics to use
-     * @param x upper-left x
-     * @param y upper-left y
-     */
-    public void draw(Graphics g, int x, int y) {
-        g.drawImage(Images.getImage(image), x, y, Images.DIE_WIDTH, Images.DIE_HEIGHT, null);
-    }
-
     /**
      * Checks for equivalency between this object and another. (Implicitly checked in usages of HashSet)
      *
@@ -125,4 +83,14 @@ public class Die implements Serializable {
         return value == die.value;
     }
 
+    /**
+     * Gets the hash code of this die (consistent with equals).
+     *
+     * @return the value of the die
+     */
+    @Override
+    public int hashCode() {
+        return value;
+    }
+
 }
@@ -0,0 +1,18 @@
+/**
+ * Interface for anything which estimates how good a position is.
+ */
+public interface Evaluator {
+
+    // Bounds of any evaluation (a backgammon)
+    double MIN = -3, MAX = 3;
+
+    /**
+     * Estimates the equity of a position for a player: the points the player expects to win (negative if losing).
+     * Finished games are worth exactly the points won (see Position.getWinPoints()).
+     *
+     * @param position the position
+     * @param color colour of the player (the player who has just moved; the opponent rolls next)
+     * @return the equity, between MIN and MAX
+     */
+    double evaluate(Position position, Game.Color color);
+}
@@ -0,0 +1,283 @@
+import java.util.ArrayList;
+import java.util.HashMap;
+
+/**
+ * Class representing a computer player which searches the game tree with expectiminimax.
+ *
+ * Chance nodes average over the 21 distinct rolls and are pruned with Star1 (bounds from the evaluation range) and
+ * Star2 (probing the first play of each roll for a lower bound). The search deepens iteratively until the maximum depth
+ * or the time budget is reached; the play from the deepest completed search is chosen.
+ */
+public class ExpectiminimaxAgent implements Agent {
+
+    /*
+     * Variable Dictionary
+     *
+     * evaluator  - evaluation of leaf positions
+     * maxDepth   - maximum search depth (1 = choose the play with the best evaluation)
+     * timeBudget - time allowed per search, in nanoseconds
+     *
+     * deadline   - time at which the current search must stop
+     * nodes      - number of nodes searched in the last search
+     * nanos      - time taken by the last search
+     * depth      - depth of the deepest completed iteration in the last search
+     */
+    private Evaluator evaluator;
+    private int maxDepth;
+    private long timeBudget;
+
+    private long deadline, nodes, nanos;
+    private int depth;
+
+    /**
+     * Exception thrown to abandon a search when time runs out.
+     */
+    private static class TimeoutException extends RuntimeException {
+        TimeoutException() {
+            super(null, null, false, false);
+        }
+    }
+
+    /**
+     * Constructs a new expectiminimax agent.
+     *
+     * @param evaluator evaluation of leaf positions
+     * @param maxDepth maximum search depth (at least 1)
+     * @param timeBudgetMillis time allowed per search, in milliseconds
+     */
+    public ExpectiminimaxAgent(Evaluator evaluator, int maxDepth, long timeBudgetMillis) {
+        this.evaluator = evaluator;
+        this.maxDepth = Math.max(1, maxDepth);
+        this.timeBudget = timeBudgetMillis * 1000000L;
+    }
+
+    /**
+     * Chooses the play with the best expectiminimax value.
+     *
+     * @param game the game
+     * @param plays the legal plays
+     * @return the chosen play
+     */
+    @Override
+    public Play choosePlay(Game game, ArrayList<Play> plays) {
+        long start = System.nanoTime();
+        deadline = start + timeBudget;
+        nodes = 0;
+        depth = 0;
+
+        Game.Color color = game.getTurn();
+        Play best = plays.get(0);
+
+        if (plays.size() > 1) {
+            ArrayList<Play> ordered = orderPlays(plays, color);
+
+            for (int d = 1; d <= maxDepth; d++) {
+                try {
+                    best = searchRoot(ordered, color, d);
+                    depth = d;
+                } catch (TimeoutException te) {
+                    break;
+                }
+
+                // Search the best play first in the next iteration
+                ordered.remove(best);
+                ordered.add(0, best);
+            }
+        }
+
+        nanos = System.nanoTime() - start;
+        return best;
+    }
+
+    /**
+     * Searches every play at the root to a fixed depth.
+     *
+     * @param plays the legal plays
+     * @param color colour of the player to move
+     * @param depth search depth
+     * @return the best play
+     */
+    private Play searchRoot(ArrayList<Play> plays, Game.Color color, int depth) {
+        Play best = null;
+        double alpha = Evaluator.MIN - 1;
+
+        for (Play play : plays) {
+            double value = valueOfPlay(play.getPosition(), color, depth, alpha, Evaluator.MAX);
+
+            if (best == null || value > alpha) {
+                alpha = value;
+                best = play;
+            }
+
+            // Depth 1 always completes so that there is a play to return
+            if (depth > 1)
+                checkTime();
+        }
+
+        return best;
+    }
+
+    /**
+     * Gets the value of a position just reached by a play, for the player who made it.
+     *
+     * @param position position after the play
+     * @param color colour of the player who made the play
+     * @param depth remaining search depth (including this play)
+     * @param alpha lower bound of interest
+     * @param beta upper bound of interest
+     * @return the value
+     */
+    private double valueOfPlay(Position position, Game.Color color, int depth, double alpha, double beta) {
+        nodes++;
+
+        if (depth <= 1 || position.checkWinner() != Game.Color.NONE)
+            return evaluator.evaluate(position, color);
+
+        return -chanceValue(position, opponent(color), depth - 1, -beta, -alpha);
+    }
+
+    /**
+     * Gets the value of a position for the player about to roll (a chance node), pruned with Star2 then Star1.
+     *
+     * @param position the position
+     * @param color colour of the player about to roll
+     * @param depth remaining search depth
+     * @param alpha lower bound of interest
+     * @param beta upper bound of interest
+     * @return the value (alpha or beta if the true value is outside the window)
+     */
+    private double chanceValue(Position position, Game.Color color, int depth, double alpha, double beta) {
+        nodes++;
+        checkTime();
+
+        ArrayList<ArrayList<Play>> playsPerRoll = new ArrayList<>(Rolls.COUNT);
+        double[] probes = new double[Rolls.COUNT];
+
+        /* Star2 probing: the first play of each roll gives a lower bound of that roll's value */
+        double probeSum = 0, remaining = 1;
+        for (int r = 0; r < Rolls.COUNT; r++) {
+            ArrayList<Play> plays = orderPlays(MoveGenerator.generatePlays(position, color, Rolls.getDice(r)), color);
+            playsPerRoll.add(plays);
+
+            probes[r] = valueOfPlay(plays.get(0).getPosition(), color, depth, Evaluator.MIN, Evaluator.MAX);
+            probeSum += Rolls.getProbability(r) * probes[r];
+            remaining -= Rolls.getProbability(r);
+
+            if (probeSum + remaining * Evaluator.MIN >= beta)
+                return beta;
+        }
+
+        /* Star1 search: bounds of the unsearched rolls narrow the window of each roll */
+        double sum = 0, lowerRest = probeSum, upperRest = 1;
+        for (int r = 0; r < Rolls.COUNT; r++) {
+            double p = Rolls.getProbability(r);
+            lowerRest -= p * probes[r];
+            upperRest -= p;
+
+            double childAlpha = (alpha - sum - upperRest * Evaluator.MAX) / p;
+            double childBeta = (beta - sum - lowerRest) / p;
+
+            double value = maxValue(playsPerRoll.get(r), color, depth, childAlpha, Math.min(childBeta, Evaluator.MAX));
+
+            if (value <= childAlpha)
+                return alpha;
+            if (value >= childBeta)
+                return beta;
+
+            sum += p * value;
+        }
+
+        return sum;
+    }
+
+    /**
+     * Gets the value of the best play for a roll (a max node), with alpha-beta pruning.
+     *
+     * @param plays the legal plays, best first
+     * @param color colour of the player to move
+     * @param depth remaining search depth
+     * @param alpha lower bound of interest
+     * @param beta upper bound of interest
+     * @return the value (at most alpha or at least beta if the true value is outside the window)
+     */
+    private double maxValue(ArrayList<Play> plays, Game.Color color, int depth, double alpha, double beta) {
+        double best = Evaluator.MIN - 1;
+
+        for (Play play : plays) {
+            double value = valueOfPlay(play.getPosition(), color, depth, alpha, beta);
+
+            if (value > best) {
+                best = value;
+                if (best > alpha) alpha = best;
+                if (best >= beta) break;
+            }
+        }
+
+        return best;
+    }
+
+    /**
+     * Sorts plays by the evaluation of their resulting positions, best first.
+     *
+     * @param plays the plays
+     * @param color colour of the player making the plays
+     * @return sorted copy of the list
+     */
+    private ArrayList<Play> orderPlays(ArrayList<Play> plays, Game.Color color) {
+        ArrayList<Play> out = new ArrayList<>(plays);
+
+        if (out.size() > 1) {
+            HashMap<Play, Double> values = new HashMap<>();
+            for (Play play : out)
+                values.put(play, evaluator.evaluate(play.getPosition(), color));
+            out.sort((a, b) -> Double.compare(values.get(b), values.get(a)));
+        }
+
+        return out;
+    }
+
+    /**
+     * Abandons the search if time has run out.
+     */
+    private void checkTime() {
+        if (System.nanoTime() > deadline)
+            throw new TimeoutException();
+    }
+
+    /**
+     * Gets the colour of the other player.
+     *
+     * @param color colour of a player
+     * @return colour of the opponent
+     */
+    private static Game.Color opponent(Game.Color color) {
+        return color == Game.Color.BLACK ? Game.Color.WHITE : Game.Color.BLACK;
+    }
+
+    /**
+     * Gets the number of nodes searched in the last search.
+     *
+     * @return number of nodes
+     */
+    public long getNodes() {
+        return nodes;
+    }
+
+    /**
+     * Gets the number of nodes searched per second in the last search.
+     *
+     * @return nodes per second
+     */
+    public double getNodesPerSecond() {
+        return nanos == 0 ? 0 : nodes / (nanos / 1e9);
+    }
+
+    /**
+     * Gets the depth of the deepest completed iteration in the last search.
+     *
+     * @return the depth
+     */
+    public int getDepth() {
+        return depth;
+    }
+}
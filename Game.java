@@ -0,0 +1,425 @@
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.LinkedList;
+
+/**
+ * Class representing a game of backgammon: the stones, the dice, and whose turn it is.
+ *
+ * Contains only the rules and the game loop (no drawing), so a game can be played from code without a display.
+ * Board adapts a game for the Swing views.
+ */
+public class Game implements Serializable {
+
+    public enum Color {
+        BLACK, WHITE, NONE
+    }
+
+    public enum Event {
+        BLACK_DICE_ROLL, BLACK_MOVE, BLACK_END_TURN, WHITE_DICE_ROLL, WHITE_MOVE, WHITE_END_TURN
+    }
+
+    /*
+     * Variable Dictionary
+     *
+     * LOOP             - list of game states
+     *
+     * currentGameState - index within LOOP representing the current game state
+     * position         - stones on the board
+     * dice             - dice left to play
+     * rolled           - whether the dice have been rolled in the current dice roll state
+     * history          - every move made in the game, in order
+     * undos            - undo records of the moves made in the current turn, in order (see Position.executeMove())
+     * playTree         - tree of legal plays for the dice left to play (calculated when needed)
+     * possibleMoves    - possible moves for the dice left to play (reused, see getPossibleMoves())
+     * movesKnown       - whether possibleMoves is up to date with the position and dice
+     * diceSource       - source of the dice rolled (null to use the shared source, see RandomDiceSource)
+     */
+    public static final LinkedList<Event> LOOP = generateGameLoop();
+
+    private int currentGameState;
+    private Position position;
+    private Dice dice;
+    private boolean rolled;
+    private ArrayList<Move> history = new ArrayList<>();
+    private ArrayList<Long> undos = new ArrayList<>();
+    private transient PlayTree playTree;
+    private transient MoveList possibleMoves;
+    private transient boolean movesKnown;
+    private transient DiceSource diceSource;
+
+    /**
+     * Constructs a new game with all stones in their starting places.
+     */
+    public Game() {
+        position = new Position();
+        dice = new Dice();
+
+        // Start the game
+        currentGameState = 0;
+        prepareGameState(currentGameState);
+    }
+
+    /**
+     * Constructs a new game which rolls its dice from the given source.
+     *
+     * @param diceSource source of the dice (null to use the shared source)
+     */
+    public Game(DiceSource diceSource) {
+        this();
+        this.diceSource = diceSource;
+    }
+
+    /**
+     * Constructs a game in a given state, such as one read from a save file.
+     *
+     * @param position stones on the board
+     * @param dice values of the dice left to play
+     * @param currentGameState index within LOOP of the current game state
+     * @param rolled whether the dice have been rolled in the current dice roll state
+     * @param history every move made in the game, in order
+     * @param undos undo records of the moves made in the current turn, in order (see Position.executeMove())
+     */
+    public Game(Position position, int[] dice, int currentGameState, boolean rolled, ArrayList<Move> history,
+                ArrayList<Long> undos) {
+        this.position = new Position(position);
+        this.dice = new Dice(dice);
+        this.currentGameState = currentGameState;
+        this.rolled = rolled;
+        this.history = new ArrayList<>(history);
+        this.undos = new ArrayList<>(undos);
+    }
+
+    /**
+     * Starts a new game with the same object, putting all stones back in their starting places.
+     */
+    public void reset() {
+        position.reset();
+        dice.clear();
+        history.clear();
+        undos.clear();
+        movesKnown = false;
+
+        currentGameState = 0;
+        prepareGameState(currentGameState);
+    }
+
+    /**
+     * Prepares the game loop. Game states are ordered in the list.
+     *
+     * @return the game loop
+     */
+    private static LinkedList<Event> generateGameLoop(){
+        LinkedList<Event> out = new LinkedList<>();
+        out.add(Event.BLACK_DICE_ROLL);
+        out.add(Event.BLACK_MOVE);
+        out.add(Event.BLACK_END_TURN);
+        out.add(Event.WHITE_DICE_ROLL);
+        out.add(Event.WHITE_MOVE);
+        out.add(Event.WHITE_END_TURN);
+
+        return out;
+    }
+
+    /**
+     * Main game logic. Proceeds to the next game state if all events of the current game state are done.
+     */
+    public void updateGame() {
+        boolean proceedToNextState = false;
+
+        // Perform state-specific checks
+        switch (LOOP.get(currentGameState)) {
+
+            case BLACK_DICE_ROLL:
+            case WHITE_DICE_ROLL:
+                proceedToNextState = rolled;
+                break;
+
+            case BLACK_MOVE:
+            case WHITE_MOVE:
+                proceedToNextState = !isGameOver() && (dice.size() == 0 || !hasPossibleMoves());
+                break;
+
+            case BLACK_END_TURN:
+            case WHITE_END_TURN:
+                proceedToNextState = !isGameOver();
+                break;
+        }
+
+        // Stay on current state until exit condition met
+        if (proceedToNextState)
+            prepareGameState(currentGameState = (currentGameState + 1) % LOOP.size());
+    }
+
+    /**
+     * Do preparations for the specified game state.
+     *
+     * @param gameState game state
+     */
+    private void prepareGameState(int gameState) {
+        switch (LOOP.get(gameState)) {
+
+            case BLACK_DICE_ROLL:
+            case WHITE_DICE_ROLL:
+                rolled = false;
+                break;
+
+            case BLACK_MOVE:
+            case WHITE_MOVE:
+                playTree = null;
+                movesKnown = false;
+                undos.clear();
+                break;
+
+            default:
+                break;
+        }
+    }
+
+    /**
+     * Rolls the dice. Does nothing unless the game is waiting for a dice roll.
+     */
+    public void rollDice() {
+        if (rolled || (LOOP.get(currentGameState) != Event.BLACK_DICE_ROLL && LOOP.get(currentGameState) != Event.WHITE_DICE_ROLL))
+            return;
+
+        if (diceSource == null)
+            dice.randomRoll();
+        else
+            dice.randomRoll(diceSource);
+        rolled = true;
+    }
+
+    /**
+     * Moves a stone and uses up the dice of the move. The move should be one of the possible moves.
+     * The play tree of the roll is kept, stepped down to the node reached by the move.
+     *
+     * @param move the move to execute
+     */
+    public void executeMove(Move move) {
+        if (move == null)
+            return;
+
+        undos.add(position.executeMove(move));
+        dice.removeDiceInMove(move);
+        history.add(move);
+        movesKnown = false;
+
+        // Step down the play tree rather than generating the moves for the remaining dice again
+        if (playTree != null)
+            playTree = playTree.getChild(move);
+    }
+
+    /**
+     * Takes back the last move of the current turn, giving back its dice. Only moves of the turn in progress can be
+     * taken back (once the last die is played, the turn is over).
+     *
+     * @return true if a move was taken back
+     */
+    public boolean takeBack() {
+        if (!canTakeBack())
+            return false;
+
+        Move move = history.remove(history.size() - 1);
+        position.unmakeMove(undos.remove(undos.size() - 1));
+        dice.addDiceInMove(move);
+
+        // The tree was stepped past this move; it is made again when next needed
+        playTree = null;
+        movesKnown = false;
+        return true;
+    }
+
+    /**
+     * Checks whether a move of the current turn can be taken back.
+     *
+     * @return true if takeBack() would take back a move
+     */
+    public boolean canTakeBack() {
+        return (getEvent() == Event.BLACK_MOVE || getEvent() == Event.WHITE_MOVE) && !undos.isEmpty();
+    }
+
+    /**
+     * Makes every move of a complete play.
+     *
+     * @param play the play (one of getPlays())
+     */
+    public void executePlay(Play play) {
+        for (Move move : play.getMoves())
+            executeMove(move);
+    }
+
+    /**
+     * Gets the tree of legal plays for the player to move and the dice left to play.
+     *
+     * @return root of the play tree
+     */
+    public PlayTree getPlayTree() {
+        if (playTree == null)
+            playTree = MoveGenerator.generateTree(position, getTurn(), dice.getValues());
+
+        return playTree;
+    }
+
+    /**
+     * Gets every distinct complete play for the player to move and the dice left to play.
+     *
+     * @return list of plays (a single empty play if no move is possible)
+     */
+    public ArrayList<Play> getPlays() {
+        return getPlayTree().getPlays();
+    }
+
+    /**
+     * Gets every possible move of one stone for the player to move and the dice left to play (see
+     * MoveGenerator.generateMoves()). The moves are generated without the play tree into a list which is reused, and
+     * only again once a move is made or taken back, so the list should be read before the game changes.
+     *
+     * @return list of possible moves
+     */
+    public MoveList getPossibleMoves() {
+        if (possibleMoves == null)
+            possibleMoves = new MoveList();
+
+        if (!movesKnown) {
+            MoveGenerator.generateMoves(position, getTurn(), dice.getValues(), possibleMoves);
+            movesKnown = true;
+        }
+
+        return possibleMoves;
+    }
+
+    /**
+     * Checks if the player to move can move any stone.
+     *
+     * @return true if there are possible moves, false otherwise
+     */
+    public boolean hasPossibleMoves() {
+        return !getPossibleMoves().isEmpty();
+    }
+
+    /**
+     * Gets the current game state.
+     *
+     * @return the game state
+     */
+    public Event getEvent() {
+        return LOOP.get(currentGameState);
+    }
+
+    /**
+     * Gets the index of the current game state within LOOP.
+     *
+     * @return the index
+     */
+    public int getCurrentGameState() {
+        return currentGameState;
+    }
+
+    /**
+     * Gets the colour of the player whose turn it is (black's states come first in LOOP).
+     *
+     * @return colour of the player
+     */
+    public Color getTurn() {
+        return currentGameState < LOOP.size() / 2 ? Color.BLACK : Color.WHITE;
+    }
+
+    /**
+     * Gets the stones on the board.
+     *
+     * @return the position
+     */
+    public Position getPosition() {
+        return position;
+    }
+
+    /**
+     * Gets the dice left to play.
+     *
+     * @return the dice
+     */
+    public Dice getDice() {
+        return dice;
+    }
+
+    /**
+     * Checks whether the dice have been rolled in the current dice roll state.
+     *
+     * @return true if rolled
+     */
+    public boolean isRolled() {
+        return rolled;
+    }
+
+    /**
+     * Gets the source of the dice rolled.
+     *
+     * @return the source (null if the shared source is used)
+     */
+    public DiceSource getDiceSource() {
+        return diceSource;
+    }
+
+    /**
+     * Sets the source of the dice rolled from now on.
+     *
+     * @param diceSource the source (null to use the shared source, see RandomDiceSource)
+     */
+    public void setDiceSource(DiceSource diceSource) {
+        this.diceSource = diceSource;
+    }
+
+    /**
+     * Gets every move made in the game, in order.
+     *
+     * @return list of moves
+     */
+    public ArrayList<Move> getHistory() {
+        return history;
+    }
+
+    /**
+     * Gets the undo records of the moves made in the current turn, which takeBack() uses.
+     *
+     * @return list of undo records, in order (see Position.executeMove())
+     */
+    public ArrayList<Long> getUndos() {
+        return undos;
+    }
+
+    /**
+     * Gets the key of the current game position: stones, side to move, and dice left to play (see Zobrist).
+     *
+     * @return the key
+     */
+    public long getPositionKey() {
+        return position.getKey(getTurn(), dice.getValues());
+    }
+
+    /**
+     * Gets the colour of the winning player.
+     *
+     * @return color of the winner (Color.NONE if no winner yet)
+     */
+    public Color getWinner() {
+        return position.checkWinner();
+    }
+
+    /**
+     * Gets the number of points won by the winner (see Position.getWinPoints()).
+     *
+     * @return 1 for a single game, 2 for a gammon, 3 for a backgammon (0 if no winner yet)
+     */
+    public int getWinPoints() {
+        return position.getWinPoints();
+    }
+
+    /**
+     * Checks whether the game is over.
+     *
+     * @return whether game is over
+     */
+    public boolean isGameOver() {
+        return getWinner() != Color.NONE;
+    }
+}
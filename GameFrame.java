@@ -52,7 +52,7 @@ public class GameFrame extends JFrame implements PropertyChangeListener {
         setMinimumSize(DIMENSIONS);
         setDefaultCloseOperation(WindowConstants.EXIT_ON_CLOSE);
         setResizable(true);
-        setIconImage(Images.getImage(Images.k.STONE_WHITE));
+        Images.getImageAsync(Images.k.STONE_WHITE).thenAccept(icon -> SwingUtilities.invokeLater(() -> setIconImage(icon)));
     }
 
     /**
@@ -87,7 +87,8 @@ public class GameFrame extends JFrame implements PropertyChangeListener {
      * @param args the command line arguments
      */
     public static void main(String[] args) {
-        Images.load();
+        // Load the images while the main menu (which does not need them) shows
+        Images.loadAsync();
 
         GameFrame frame = new GameFrame();
         frame.setVisible(true);
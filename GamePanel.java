@@ -1,4 +1,6 @@
 import java.awt.*;
+import java.awt.event.InputEvent;
+import java.awt.event.KeyEvent;
 import java.io.*;
 import javax.swing.*;
 
@@ -7,6 +9,10 @@ import javax.swing.*;
  */
 public class GamePanel extends JPanel {
 
+    // Limits of a rollout started from the menu
+    private static final int ROLLOUT_TRIALS = 100000;
+    private static final double ROLLOUT_ERROR = 0.005;
+
     private BoardPanel bp;
     private JPanel bpWrapper;
 
@@ -21,7 +27,7 @@ public class GamePanel extends JPanel {
         setBackground(new Color(100, 150, 170));
 
         // Declarations
-        JMenuItem iQuit, iNew, iSave, iLoad, iHelp, iEndGame;
+        JMenuItem iQuit, iNew, iSave, iLoad, iTakeBack, iHelp, iEndGame, iRollout, iPositionId, iEnterDice;
         JMenu mFile, mOption;
         JMenuBar jMenuBar;
 
@@ -48,6 +54,11 @@ public class GamePanel extends JPanel {
         iLoad.addActionListener(e -> load());
         mFile.add(iLoad);
 
+        iTakeBack = new JMenuItem("Take Back");
+        iTakeBack.setAccelerator(KeyStroke.getKeyStroke(KeyEvent.VK_Z, InputEvent.CTRL_DOWN_MASK));
+        iTakeBack.addActionListener(e -> takeBack());
+        mFile.add(iTakeBack);
+
         mFile.addSeparator();
 
         iQuit = new JMenuItem("Exit Game");
@@ -61,6 +72,18 @@ public class GamePanel extends JPanel {
         iHelp.setActionCommand("HELP");
         mOption.add(iHelp);
 
+        iRollout = new JMenuItem("Rollout");
+        iRollout.addActionListener(e -> rollout());
+        mOption.add(iRollout);
+
+        iPositionId = new JMenuItem("Position ID");
+        iPositionId.addActionListener(e -> positionId());
+        mOption.add(iPositionId);
+
+        iEnterDice = new JMenuItem("Enter Dice");
+        iEnterDice.addActionListener(e -> enterDice());
+        mOption.add(iEnterDice);
+
         iEndGame = new JMenuItem("End Game");
         iEndGame.addActionListener(e -> setEnd());
         mOption.add(iEndGame);
@@ -78,7 +101,7 @@ public class GamePanel extends JPanel {
     }
 
     private void makeNewGame() {
-        String[] options = new String[]{ "Player" };
+        String[] options = new String[]{ "Player", "Computer" };
         JLabel label = new JLabel("New Game Options");
         JComboBox<String> cbBlack = new JComboBox<>(options), cbWhite = new JComboBox<>(options);
         JComponent[] inputs = new JComponent[] { label, cbBlack, cbWhite };
@@ -91,26 +114,26 @@ public class GamePanel extends JPanel {
         }
     }
     /**
-     * Save boardPanel to file
+     * Saves the game to a file (see SaveFile).
      */
     private void save() {
+        if (bp == null)
+            return;
+
         JFileChooser fc = new JFileChooser();
         fc.setCurrentDirectory(new File("save"));
 
         if (fc.showSaveDialog(this) == JFileChooser.APPROVE_OPTION) {
-            File fSave = fc.getSelectedFile();
             try {
-                ObjectOutputStream out = new ObjectOutputStream(new FileOutputStream(fSave));
-                out.writeObject(bp);
-                out.close();
-            } catch (Exception e) {
-                System.out.println(e.toString());
+                SaveFile.save(fc.getSelectedFile(), bp.getBoard());
+            } catch (IOException ioe) {
+                System.out.println(ioe.toString());
             }
         }
     }
 
     /**
-     * Load boardPanel from file
+     * Loads a game from a file (see SaveFile), making new views for it.
      */
     private void load() {
         JFileChooser fc = new JFileChooser();
@@ -118,30 +141,121 @@ public class GamePanel extends JPanel {
 
         try {
             if (fc.showOpenDialog(this) == JFileChooser.APPROVE_OPTION) {
-                ObjectInputStream in = new ObjectInputStream(new FileInputStream(fc.getSelectedFile()));
-                this.setBP((BoardPanel) in.readObject());
-                in.close();
+                this.setBP(new BoardPanel(SaveFile.load(fc.getSelectedFile())));
 
                 synchronized (this) {
                     notify();
                 }
             }
-        } catch (Exception ex) {
-            System.out.println(ex.toString());
+        } catch (IOException ioe) {
+            System.out.println(ioe.toString());
         }
     }
 
+    /**
+     * Takes back the last move of the current turn.
+     */
+    private void takeBack() {
+        if (bp != null && bp.getBoard().takeBack())
+            bp.repaint();
+    }
+
     /**
      * Forces the end of the game. (For fun)
      */
     private void setEnd() {
     	if (bp != null) {
-            bp.setWinner(Board.Color.NONE);
+            bp.setWinner(Game.Color.NONE);
             bp.setGameOver(true);
             repaint();
         }
     }
 
+    /**
+     * Rolls out the current position on a background thread, showing the results as they come in.
+     * Closing the dialog cancels the rollout.
+     */
+    private void rollout() {
+        if (bp == null || bp.getBoard().getGameOver())
+            return;
+
+        Rollout rollout = bp.getBoard().makeRollout(ROLLOUT_TRIALS, System.nanoTime());
+        rollout.setTargetError(ROLLOUT_ERROR);
+
+        JLabel label = new JLabel("Rolling out...");
+        rollout.setListener(result -> SwingUtilities.invokeLater(() ->
+                label.setText("<html><pre>" + result + "</pre></html>")));
+
+        Thread thread = new Thread(() -> {
+            try {
+                rollout.run();
+            } catch (Exception e) {
+                System.out.println(e.toString());
+            }
+        }, "Rollout");
+        thread.setDaemon(true);
+        thread.start();
+
+        JOptionPane.showOptionDialog(this, label, "Rollout", JOptionPane.DEFAULT_OPTION, JOptionPane.PLAIN_MESSAGE,
+                null, new String[]{ "Close" }, "Close");
+        rollout.cancel();
+    }
+
+    /**
+     * Shows the ID of the current position (see PositionId), which can be copied. Entering another ID sets up that
+     * position, with the same players.
+     */
+    private void positionId() {
+        if (bp == null)
+            return;
+
+        Board board = bp.getBoard();
+        String id = PositionId.encode(board.getGame());
+        Object input = JOptionPane.showInputDialog(this, "Position ID:Match ID", "Position ID",
+                JOptionPane.PLAIN_MESSAGE, null, null, id);
+
+        if (input == null || input.toString().trim().equals(id))
+            return;
+
+        try {
+            Game game = PositionId.decode(input.toString().trim());
+            setBP(new BoardPanel(new Board(game, board.isPlayer(Game.Color.BLACK), board.isPlayer(Game.Color.WHITE))));
+        } catch (IllegalArgumentException iae) {
+            JOptionPane.showMessageDialog(this, iae.getMessage(), "Position ID", JOptionPane.ERROR_MESSAGE);
+        }
+    }
+
+    /**
+     * Asks for the dice of the next rolls, such as those of a game played on a real board (see ManualDiceSource).
+     * Once they are used up, the dice are random again.
+     */
+    private void enterDice() {
+        if (bp == null)
+            return;
+
+        Game game = bp.getBoard().getGame();
+        Object input = JOptionPane.showInputDialog(this, "Dice of the next rolls (e.g. 3-1 6-6)", "Enter Dice",
+                JOptionPane.PLAIN_MESSAGE, null, null, "");
+
+        if (input == null)
+            return;
+
+        String text = input.toString().replaceAll("[\\s,-]", "");
+        int[] values = new int[text.length()];
+        for (int i = 0; i < values.length; i++)
+            values[i] = Character.isDigit(text.charAt(i)) ? text.charAt(i) - '0' : 0;
+
+        try {
+            DiceSource current = (game.getDiceSource() != null) ? game.getDiceSource() : RandomDiceSource.getShared();
+            ManualDiceSource source = (current instanceof ManualDiceSource)
+                    ? (ManualDiceSource) current : new ManualDiceSource(current);
+            source.add(values);
+            game.setDiceSource(source);
+        } catch (IllegalArgumentException iae) {
+            JOptionPane.showMessageDialog(this, iae.getMessage(), "Enter Dice", JOptionPane.ERROR_MESSAGE);
+        }
+    }
+
     /**
      * Sets the board panel.
      *
@@ -0,0 +1,86 @@
+/**
+ * Class which estimates the equity of a position from a few hand-weighted features: the race (pip counts), exposed
+ * blots, points made in the home board, and stones on the bar.
+ */
+public class HeuristicEvaluator implements Evaluator {
+
+    // Weights of the features
+    private static final double RACE = 0.015, ROLL = 8, BLOT = 0.12, HOME_POINT = 0.06, BAR = 0.1;
+
+    /**
+     * Estimates the equity of a position for a player.
+     *
+     * @param position the position
+     * @param color colour of the player who has just moved
+     * @return the equity
+     */
+    @Override
+    public double evaluate(Position position, Game.Color color) {
+        Game.Color other = (color == Game.Color.BLACK) ? Game.Color.WHITE : Game.Color.BLACK;
+
+        // Finished game
+        Game.Color winner = position.checkWinner();
+        if (winner != Game.Color.NONE)
+            return (winner == color ? 1 : -1) * position.getWinPoints();
+
+        // The opponent rolls next, which is worth about ROLL pips in the race
+        double score = RACE * (position.getPipCount(other) - position.getPipCount(color) - ROLL);
+
+        score -= BLOT * countExposedBlots(position, color);
+        score += HOME_POINT * (countHomePoints(position, color) - countHomePoints(position, other));
+        score += BAR * (position.getBarCount(other) - position.getBarCount(color));
+
+        return Math.tanh(score);
+    }
+
+    /**
+     * Counts a player's single stones which an opponent's stone could hit with one or two dice (up to 12 pips away).
+     *
+     * @param position the position
+     * @param color colour of the player
+     * @return number of exposed blots
+     */
+    private static int countExposedBlots(Position position, Game.Color color) {
+        Game.Color other = (color == Game.Color.BLACK) ? Game.Color.WHITE : Game.Color.BLACK;
+        int d = (color == Game.Color.BLACK) ? 1 : -1; // direction of travel of the player
+        int otherBar = (color == Game.Color.BLACK) ? Position.WHITE_BAR : Position.BLACK_BAR;
+        int blots = 0;
+
+        for (int pip = 1; pip <= 24; pip++) {
+            if (position.getStoneCount(pip, color) != 1)
+                continue;
+
+            // Opponent stones move against the player's direction, so they hit from pips further along
+            boolean exposed = false;
+            for (int q = pip + d; !exposed && q * d <= (pip + 12 * d) * d && q >= 1 && q <= 24; q += d)
+                exposed = position.isPossibleStart(q, other);
+
+            // Opponent stones on the bar enter from just beyond the last pip
+            int entry = (color == Game.Color.BLACK) ? 25 : 0;
+            if (!exposed && position.isPossibleStart(otherBar, other) && (entry - pip) * d <= 12)
+                exposed = true;
+
+            if (exposed)
+                blots++;
+        }
+
+        return blots;
+    }
+
+    /**
+     * Counts the points (pips with two or more stones) a player holds in their home board.
+     *
+     * @param position the position
+     * @param color colour of the player
+     * @return number of points made
+     */
+    private static int countHomePoints(Position position, Game.Color color) {
+        int first = (color == Game.Color.BLACK) ? 19 : 1, points = 0;
+
+        for (int pip = first; pip < first + 6; pip++)
+            if (position.getStoneCount(pip, color) >= 2)
+                points++;
+
+        return points;
+    }
+}
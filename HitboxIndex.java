@@ -0,0 +1,96 @@
+import java.awt.*;
+import java.io.Serializable;
+import java.util.IdentityHashMap;
+
+/**
+ * Class which finds the hitbox under a point without testing every hitbox.
+ *
+ * The board is divided into a uniform grid of square cells, and each cell lists the hitboxes which overlap it, so only
+ * the few hitboxes of one cell are tested. The index also maps each hitbox back to the pip it belongs to.
+ */
+public class HitboxIndex implements Serializable {
+
+    // Side of a cell of the grid
+    private static final int CELL = 25;
+
+    private static final Hitbox[] NONE = new Hitbox[0];
+
+    /*
+     * Variable Dictionary
+     *
+     * columns - number of columns of cells
+     * rows    - number of rows of cells
+     * cells   - hitboxes overlapping each cell, indexed by row * columns + column
+     * pips    - pip of each hitbox which belongs to one
+     */
+    private int columns, rows;
+    private Hitbox[][] cells;
+    private IdentityHashMap<Hitbox, Pip> pips = new IdentityHashMap<>();
+
+    /**
+     * Constructs a new empty index over an area starting at (0, 0).
+     *
+     * @param width width of the area
+     * @param height height of the area
+     */
+    public HitboxIndex(int width, int height) {
+        columns = (width + CELL - 1) / CELL;
+        rows = (height + CELL - 1) / CELL;
+
+        cells = new Hitbox[columns * rows][];
+        for (int i = 0; i < cells.length; i++)
+            cells[i] = NONE;
+    }
+
+    /**
+     * Adds a hitbox to the index.
+     *
+     * @param hitbox the hitbox
+     * @param pip pip the hitbox belongs to (null if none)
+     */
+    public void add(Hitbox hitbox, Pip pip) {
+        if (pip != null)
+            pips.put(hitbox, pip);
+
+        int left = Math.max(0, hitbox.x / CELL), right = Math.min(columns - 1, (hitbox.x + hitbox.width - 1) / CELL);
+        int top = Math.max(0, hitbox.y / CELL), bottom = Math.min(rows - 1, (hitbox.y + hitbox.height - 1) / CELL);
+
+        for (int row = top; row <= bottom; row++) {
+            for (int column = left; column <= right; column++) {
+                Hitbox[] cell = cells[row * columns + column];
+                Hitbox[] grown = new Hitbox[cell.length + 1];
+                System.arraycopy(cell, 0, grown, 0, cell.length);
+                grown[cell.length] = hitbox;
+                cells[row * columns + column] = grown;
+            }
+        }
+    }
+
+    /**
+     * Gets the hitbox which contains a point, whether or not it is hoverable.
+     *
+     * @param p the point
+     * @return the hitbox (null if none)
+     */
+    public Hitbox getHitbox(Point p) {
+        if (p == null || p.x < 0 || p.y < 0 || p.x >= columns * CELL || p.y >= rows * CELL)
+            return null;
+
+        for (Hitbox hitbox : cells[(p.y / CELL) * columns + p.x / CELL]) {
+            if (hitbox.contains(p))
+                return hitbox;
+        }
+
+        return null;
+    }
+
+    /**
+     * Gets the pip a hitbox belongs to.
+     *
+     * @param hitbox the hitbox
+     * @return the pip (null if none)
+     */
+    public Pip getPip(Hitbox hitbox) {
+        return hitbox == null ? null : pips.get(hitbox);
+    }
+}
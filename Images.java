@@ -1,11 +1,17 @@
 import javax.imageio.ImageIO;
+import java.awt.*;
 import java.awt.image.BufferedImage;
-import java.io.File;
-import java.io.IOException;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.EnumMap;
 import java.util.HashMap;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Class containing images for use.
+ *
+ * Images are loaded in the background from the class path (or the working directory), preferably from a single atlas
+ * made by AtlasPacker, and each image is waited for only when it is first needed.
  */
 public class Images {
 
@@ -46,43 +52,180 @@ public class Images {
         STONE_RING_HIGHLIGHT_WIDTH = 38,
         STONE_RING_HIGHLIGHT_HEIGHT = 38;
 
-    private static HashMap<k, BufferedImage> im = new HashMap<>();
+    // Directory of the images, and the atlas of all images (see AtlasPacker)
+    public static final String DIRECTORY = "res/img/", ATLAS_IMAGE = DIRECTORY + "atlas.png",
+            ATLAS_INDEX = DIRECTORY + "atlas.txt";
+
+    // Loads of the images, in the screen's format (null until loading starts)
+    private static volatile EnumMap<k, CompletableFuture<BufferedImage>> im;
+
+    /**
+     * Starts loading the images in the background, if not already started, and returns immediately.
+     *
+     * The atlas is decoded first, and the images are then cut from it and converted in parallel. Images missing from
+     * the atlas (or all images, if there is no atlas) are decoded in parallel from their own files. An image which
+     * cannot be loaded is reported and left out, without affecting the others.
+     */
+    public static synchronized void loadAsync() {
+        if (im != null)
+            return;
+
+        CompletableFuture<EnumMap<k, BufferedImage>> atlas = CompletableFuture.supplyAsync(Images::readAtlas);
+        EnumMap<k, CompletableFuture<BufferedImage>> loads = new EnumMap<>(k.class);
+
+        for (k key : k.values()) {
+            loads.put(key, atlas
+                    .exceptionally(e -> {
+                        System.err.println(e.toString());
+                        return new EnumMap<>(k.class);
+                    })
+                    .thenApplyAsync(images -> toCompatible(images.containsKey(key) ? images.get(key)
+                            : read(getFile(key))))
+                    .exceptionally(e -> {
+                        System.err.println(e.toString());
+                        return null;
+                    }));
+        }
+
+        im = loads;
+    }
 
     /**
-     * Loads the images.
+     * Loads the images and waits for them.
      */
     public static void load() {
-        try {
-            im.put(k.BOARD, ImageIO.read(new File("res/img/board.png")));
-            im.put(k.BOARD_TEXT_BLACK, ImageIO.read(new File("res/img/board_text_black.png")));
-            im.put(k.BOARD_TEXT_WHITE, ImageIO.read(new File("res/img/board_text_white.png")));
-            im.put(k.DIE_1, ImageIO.read(new File("res/img/die_1.png")));
-            im.put(k.DIE_2, ImageIO.read(new File("res/img/die_2.png")));
-            im.put(k.DIE_3, ImageIO.read(new File("res/img/die_3.png")));
-            im.put(k.DIE_4, ImageIO.read(new File("res/img/die_4.png")));
-            im.put(k.DIE_5, ImageIO.read(new File("res/img/die_5.png")));
-            im.put(k.DIE_6, ImageIO.read(new File("res/img/die_6.png")));
-            im.put(k.ROLL_BUTTON, ImageIO.read(new File("res/img/roll_button.png")));
-            im.put(k.STONE_BLACK, ImageIO.read(new File("res/img/stone_black.png")));
-            im.put(k.STONE_WHITE, ImageIO.read(new File("res/img/stone_white.png")));
-            im.put(k.STONE_RING_HIGHLIGHT, ImageIO.read(new File("res/img/stone_ring_highlight.png")));
-            im.put(k.PIP_BLACK, ImageIO.read(new File("res/img/pip_black.png")));
-            im.put(k.PIP_WHITE, ImageIO.read(new File("res/img/pip_white.png")));
-            im.put(k.PIP_HIGHLIGHT_HARD, ImageIO.read(new File("res/img/pip_highlight_hard.png")));
-            im.put(k.PIP_HIGHLIGHT_SOFT, ImageIO.read(new File("res/img/pip_highlight_soft.png")));
-            im.put(k.HOME_HIGHLIGHT, ImageIO.read(new File("res/img/home_highlight.png")));
+        loadAsync();
+
+        for (CompletableFuture<BufferedImage> load : im.values())
+            load.join();
+    }
+
+    /**
+     * Gets the file name of an image which is not in the atlas.
+     *
+     * @param key image key
+     * @return resource name of the image
+     */
+    public static String getFile(k key) {
+        return DIRECTORY + key.name().toLowerCase() + ".png";
+    }
+
+    /**
+     * Opens a resource from the class path, or else from the working directory.
+     *
+     * @param name resource name, relative to the root of the class path (e.g. "res/img/board.png")
+     * @return stream of the resource
+     * @throws IOException if the resource does not exist
+     */
+    public static InputStream openResource(String name) throws IOException {
+        InputStream in = Images.class.getResourceAsStream("/" + name);
+        if (in != null)
+            return in;
+
+        return new FileInputStream(name);
+    }
+
+    /**
+     * Decodes an image resource.
+     *
+     * @param name resource name
+     * @return the image
+     * @throws UncheckedIOException if the image cannot be read
+     */
+    private static BufferedImage read(String name) {
+        try (InputStream in = new BufferedInputStream(openResource(name))) {
+            BufferedImage image = ImageIO.read(in);
+            if (image == null)
+                throw new IOException("Not an image: " + name);
+            return image;
         } catch (IOException ioe) {
-            System.err.println(ioe.toString());
+            throw new UncheckedIOException(ioe);
         }
     }
 
     /**
-     * Gets a certain image.
+     * Decodes the atlas and cuts it into its images. Method should only be called from inside loadAsync().
+     *
+     * @return images of the atlas (empty if there is no atlas)
+     * @throws UncheckedIOException if the atlas cannot be read
+     */
+    private static EnumMap<k, BufferedImage> readAtlas() {
+        EnumMap<k, BufferedImage> images = new EnumMap<>(k.class);
+        HashMap<k, Rectangle> regions = new HashMap<>();
+
+        try (BufferedReader in = new BufferedReader(new InputStreamReader(openResource(ATLAS_INDEX),
+                StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                String[] fields = line.trim().split("\\s+");
+                if (fields.length == 5)
+                    regions.put(k.valueOf(fields[0]), new Rectangle(Integer.parseInt(fields[1]),
+                            Integer.parseInt(fields[2]), Integer.parseInt(fields[3]), Integer.parseInt(fields[4])));
+            }
+        } catch (FileNotFoundException fnfe) {
+            return images;
+        } catch (IOException | IllegalArgumentException e) {
+            throw new UncheckedIOException(new IOException("Bad atlas index: " + ATLAS_INDEX, e));
+        }
+
+        BufferedImage atlas = read(ATLAS_IMAGE);
+        for (k key : regions.keySet()) {
+            Rectangle r = regions.get(key);
+            images.put(key, atlas.getSubimage(r.x, r.y, r.width, r.height));
+        }
+
+        return images;
+    }
+
+    /**
+     * Gets a certain image, waiting for it to load if needed (and starting the loading if not started).
      *
      * @param key image key (Images.k)
-     * @return corresponding image, or null if invalid key
+     * @return corresponding image, or null if invalid key or the image could not be loaded
      */
     public static BufferedImage getImage(k key) {
+        return key == null ? null : getImageAsync(key).join();
+    }
+
+    /**
+     * Gets a certain image once it has loaded (starting the loading if not started).
+     *
+     * @param key image key (Images.k)
+     * @return load of the image (completes with null if the image could not be loaded)
+     */
+    public static CompletableFuture<BufferedImage> getImageAsync(k key) {
+        loadAsync();
         return im.get(key);
     }
-}
\ No newline at end of file
+
+    /**
+     * Makes an image in the format of the screen, which can be drawn without conversion (and cached in video memory).
+     *
+     * @param width width
+     * @param height height
+     * @param transparency transparency (see java.awt.Transparency)
+     * @return the image
+     */
+    public static BufferedImage createCompatibleImage(int width, int height, int transparency) {
+        if (GraphicsEnvironment.isHeadless())
+            return new BufferedImage(width, height,
+                    transparency == Transparency.OPAQUE ? BufferedImage.TYPE_INT_RGB : BufferedImage.TYPE_INT_ARGB);
+
+        return GraphicsEnvironment.getLocalGraphicsEnvironment().getDefaultScreenDevice().getDefaultConfiguration()
+                .createCompatibleImage(width, height, transparency);
+    }
+
+    /**
+     * Copies an image into the format of the screen.
+     *
+     * @param image the image
+     * @return the copy
+     */
+    private static BufferedImage toCompatible(BufferedImage image) {
+        BufferedImage out = createCompatibleImage(image.getWidth(), image.getHeight(), image.getTransparency());
+        Graphics2D g = out.createGraphics();
+        g.drawImage(image, 0, 0, null);
+        g.dispose();
+        return out;
+    }
+}
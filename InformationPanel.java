@@ -1,9 +1,8 @@
 import javax.swing.*;
 import java.awt.*;
 import java.io.BufferedReader;
-import java.io.File;
-import java.io.FileReader;
 import java.io.IOException;
+import java.io.InputStreamReader;
 
 /**
  * Class representing the view of the information panel.
@@ -32,7 +31,7 @@ public class InformationPanel extends JPanel {
         textArea = new JTextArea();
         String textToShow = "information.txt missing";
         try { // File reading!
-            BufferedReader br = new BufferedReader(new FileReader(new File("res/txt/information.txt")));
+            BufferedReader br = new BufferedReader(new InputStreamReader(Images.openResource("res/txt/information.txt")));
 
             textToShow = "";
 
@@ -0,0 +1,80 @@
+import java.util.ArrayDeque;
+
+/**
+ * Class which gives dice entered by hand, in order, such as a roll read from a real board or the dice of a test.
+ * Once the entered dice are used up, dice are rolled from a fallback source, if there is one.
+ */
+public class ManualDiceSource implements DiceSource {
+
+    /*
+     * Variable Dictionary
+     *
+     * dice     - values of the dice entered and not yet used, in order
+     * fallback - source of the dice once the entered dice are used up (null if none)
+     */
+    private ArrayDeque<Integer> dice = new ArrayDeque<>();
+    private DiceSource fallback;
+
+    /**
+     * Constructs a new source with some dice entered and no fallback.
+     *
+     * @param values values of the dice
+     */
+    public ManualDiceSource(int... values) {
+        this(null, values);
+    }
+
+    /**
+     * Constructs a new source with some dice entered.
+     *
+     * @param fallback source of the dice once the entered dice are used up (null if none)
+     * @param values values of the dice
+     */
+    public ManualDiceSource(DiceSource fallback, int... values) {
+        this.fallback = fallback;
+        add(values);
+    }
+
+    /**
+     * Enters more dice, to be given after the dice already entered.
+     *
+     * @param values values of the dice
+     * @throws IllegalArgumentException if a value is not 1 to 6
+     */
+    public void add(int... values) {
+        for (int value : values) {
+            if (value < 1 || value > 6)
+                throw new IllegalArgumentException("Bad die value " + value);
+        }
+
+        for (int value : values)
+            dice.add(value);
+    }
+
+    /**
+     * Gets the number of entered dice not yet used.
+     *
+     * @return the number of dice
+     */
+    public int getRemaining() {
+        return dice.size();
+    }
+
+    /**
+     * Gives the next entered die, or rolls one from the fallback source.
+     *
+     * @return value of the die (1-6)
+     * @throws IllegalStateException if the entered dice are used up and there is no fallback
+     */
+    @Override
+    public int nextDie() {
+        Integer value = dice.poll();
+
+        if (value != null)
+            return value;
+        if (fallback == null)
+            throw new IllegalStateException("No dice entered");
+
+        return fallback.nextDie();
+    }
+}
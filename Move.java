@@ -1,33 +1,51 @@
 import java.io.Serializable;
-import java.util.ArrayList;
 
 /**
- * Class representing a move.
+ * Class representing a move of one stone by one or more dice.
+ *
+ * A move is a value packed into a single int (see encode()): the starting and ending pips, the dice used in order, and
+ * which steps knocked a stone to the bar. Moves with the same packed value are equal, so moves can be hashed, sorted
+ * and kept in primitive lists (see MoveList) without allocating.
  */
-public class Move implements Serializable {
-	private int startPip, endPip;
-	private ArrayList<Die> diceToUse;
+public final class Move implements Serializable, Comparable<Move> {
+
+    // Layout of a packed move (see encode()): the starting and ending slots, the number of dice, each die's value, then
+    // whether each step knocked a stone to the bar
+    private static final int PIP_BITS = 5, PIP_MASK = (1 << PIP_BITS) - 1, COUNT_SHIFT = 2 * PIP_BITS, COUNT_BITS = 3,
+            DIE_SHIFT = COUNT_SHIFT + COUNT_BITS, DIE_BITS = 3, HIT_SHIFT = DIE_SHIFT + 4 * DIE_BITS;
+
+    /*
+     * Variable Dictionary
+     *
+     * packed - the move, packed (see encode())
+     */
+    private final int packed;
 
     /**
-     * Constructs a new move.
+     * Constructs a new move from a packed move.
      *
-     * @param start number of starting pip
-     * @param end number of ending pip
-     * @param diceToUse list of dice to use in this move (can be more than 1 dice)
+     * @param packed the packed move (see encode())
      */
-	public Move(int start, int end, ArrayList<Die> diceToUse) {
-		startPip = start;
-		endPip = end;
-		this.diceToUse = diceToUse;
-	}
+    public Move(int packed) {
+        this.packed = packed;
+    }
+
+    /**
+     * Gets the packed value of this move.
+     *
+     * @return the packed move (see encode())
+     */
+    public int getPacked() {
+        return packed;
+    }
 
     /**
      * Gets the starting pip number.
      *
      * @return the number
      */
-	public int getStartPip() {
-	    return startPip;
+    public int getStartPip() {
+        return getStartPip(packed);
     }
 
     /**
@@ -36,15 +54,166 @@ public class Move implements Serializable {
      * @return the number
      */
     public int getEndPip() {
-	    return endPip;
+        return getEndPip(packed);
+    }
+
+    /**
+     * Gets the number of dice used.
+     *
+     * @return the number of dice (1-4)
+     */
+    public int getDiceCount() {
+        return getDiceCount(packed);
+    }
+
+    /**
+     * Gets the value of one die used, in the order the dice are used.
+     *
+     * @param i index of the die
+     * @return the value
+     */
+    public int getDie(int i) {
+        return getDie(packed, i);
     }
 
     /**
-     * Gets the list of dice to use.
+     * Checks whether a step of this move knocked a stone to the bar.
      *
-     * @return the list of dice
+     * @param i index of the step (the die used)
+     * @return true if the step hit
      */
-    public ArrayList<Die> getDiceToUse() {
-	    return diceToUse;
+    public boolean isHit(int i) {
+        return isHit(packed, i);
+    }
+
+    /**
+     * Packs a move of one die into an int. A packed move is never 0.
+     *
+     * @param start number of starting pip
+     * @param end number of ending pip
+     * @param die value of the die
+     * @param hit whether the move knocks a stone to the bar
+     * @return the packed move
+     */
+    public static int encode(int start, int end, int die, boolean hit) {
+        return (start + Position.OFFSET) | (end + Position.OFFSET) << PIP_BITS | 1 << COUNT_SHIFT | die << DIE_SHIFT
+                | (hit ? 1 : 0) << HIT_SHIFT;
+    }
+
+    /**
+     * Extends a packed move by one more die, moving the same stone on.
+     *
+     * @param move the packed move
+     * @param end new ending pip
+     * @param die value of the die
+     * @param hit whether the step knocks a stone to the bar
+     * @return the packed move
+     */
+    public static int extend(int move, int end, int die, boolean hit) {
+        int count = getDiceCount(move);
+        return (move & ~(PIP_MASK << PIP_BITS | ((1 << COUNT_BITS) - 1) << COUNT_SHIFT))
+                | (end + Position.OFFSET) << PIP_BITS | (count + 1) << COUNT_SHIFT
+                | die << (DIE_SHIFT + DIE_BITS * count) | (hit ? 1 : 0) << (HIT_SHIFT + count);
+    }
+
+    /**
+     * Gets the starting pip number of a packed move.
+     *
+     * @param move the packed move
+     * @return the number
+     */
+    public static int getStartPip(int move) {
+        return (move & PIP_MASK) - Position.OFFSET;
+    }
+
+    /**
+     * Gets the ending pip number of a packed move.
+     *
+     * @param move the packed move
+     * @return the number
+     */
+    public static int getEndPip(int move) {
+        return (move >>> PIP_BITS & PIP_MASK) - Position.OFFSET;
+    }
+
+    /**
+     * Gets the number of dice used by a packed move.
+     *
+     * @param move the packed move
+     * @return the number of dice (1-4)
+     */
+    public static int getDiceCount(int move) {
+        return move >>> COUNT_SHIFT & ((1 << COUNT_BITS) - 1);
+    }
+
+    /**
+     * Gets the value of one die used by a packed move, in the order the dice are used.
+     *
+     * @param move the packed move
+     * @param i index of the die
+     * @return the value
+     */
+    public static int getDie(int move, int i) {
+        return move >>> (DIE_SHIFT + DIE_BITS * i) & ((1 << DIE_BITS) - 1);
+    }
+
+    /**
+     * Checks whether a step of a packed move knocked a stone to the bar.
+     *
+     * @param move the packed move
+     * @param i index of the step (the die used)
+     * @return true if the step hit
+     */
+    public static boolean isHit(int move, int i) {
+        return (move >>> (HIT_SHIFT + i) & 1) != 0;
+    }
+
+    /**
+     * Checks for equivalency between this move and another.
+     *
+     * @param o the other object
+     * @return true if both moves have the same packed value
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+
+        return packed == ((Move) o).packed;
+    }
+
+    /**
+     * Gets the hash code of this move (consistent with equals).
+     *
+     * @return the packed value
+     */
+    @Override
+    public int hashCode() {
+        return packed;
+    }
+
+    /**
+     * Compares this move to another by packed value, a fixed order for sorting and deduplicating moves.
+     *
+     * @param other the other move
+     * @return negative, zero or positive as this move is less than, equal to or greater than the other
+     */
+    @Override
+    public int compareTo(Move other) {
+        return Integer.compare(packed, other.packed);
+    }
+
+    /**
+     * Gets the move in the usual notation, such as "13/10*" (starting pip, ending pip, and a star if it hits).
+     *
+     * @return the move as a string
+     */
+    @Override
+    public String toString() {
+        boolean hit = false;
+        for (int i = 0; i < getDiceCount(); i++)
+            hit |= isHit(i);
+
+        return getStartPip() + "/" + getEndPip() + (hit ? "*" : "");
     }
 }
@@ -0,0 +1,302 @@
+import java.util.ArrayList;
+
+/**
+ * Class which generates the legal plays for a roll of the dice.
+ *
+ * Enforces the full rules: stones on the bar enter first, stones bear off only once all are in the home board
+ * (overshooting only from the farthest pip), as many dice as possible are used, and if only one die of a
+ * non-double roll can be used, the higher one is used whenever possible.
+ */
+public class MoveGenerator {
+
+    // Returned by getEndPip() when a move is not legal
+    public static final int ILLEGAL = Integer.MIN_VALUE;
+
+    // Most possible moves (see generateMoves()) of any position and roll: at most four from each pip and the bar
+    public static final int MAX_MOVES = 25 * 4;
+
+    /**
+     * Generates the tree of legal plays.
+     *
+     * @param position position to move from
+     * @param color colour of the player to move
+     * @param dice values of the dice available for play
+     * @return root of the play tree (every node holds its own copy of a position, so the given position may change)
+     */
+    public static PlayTree generateTree(Position position, Game.Color color, int[] dice) {
+        PlayTree root = new PlayTree(null, new Position(position));
+
+        if (dice.length == 0)
+            return root;
+
+        expand(root, color, dice, 0);
+
+        // If only one die of a non-double roll can be played, the higher die must be played if possible
+        if (root.getDepth() == 1 && dice.length == 2 && dice[0] != dice[1]) {
+            int high = Math.max(dice[0], dice[1]);
+            boolean canPlayHigh = false;
+
+            for (PlayTree child : root.getChildren())
+                if (child.getMove().getDie(0) == high)
+                    canPlayHigh = true;
+
+            if (canPlayHigh)
+                root.getChildren().removeIf(child -> child.getMove().getDie(0) != high);
+        }
+
+        return root;
+    }
+
+    /**
+     * Generates every distinct complete play, deduplicated by resulting position.
+     *
+     * @param position position to move from
+     * @param color colour of the player to move
+     * @param dice values of the dice available for play
+     * @return list of plays (a single empty play if no move is possible)
+     */
+    public static ArrayList<Play> generatePlays(Position position, Game.Color color, int[] dice) {
+        return generateTree(position, color, dice).getPlays();
+    }
+
+    /**
+     * Generates every possible move of one stone: a move by one or more dice which begins a legal complete play.
+     * These are the moves a person may make next, so the same moves as found from the play tree, but found without
+     * building it: the stones are moved and moved back in the given position, and nothing is allocated.
+     *
+     * @param position position to move from (changed while generating, then restored exactly)
+     * @param color colour of the player to move
+     * @param dice values of the dice available for play
+     * @param out output list of moves (cleared first)
+     */
+    public static void generateMoves(Position position, Game.Color color, int[] dice, MoveList out) {
+        out.clear();
+
+        int best = getMaxDice(position, color, dice, 0);
+        if (best == 0)
+            return;
+
+        // If only one die of a non-double roll can be played, the higher die must be played if possible
+        int only = 0;
+        if (best == 1 && dice.length == 2 && dice[0] != dice[1]) {
+            int high = Math.max(dice[0], dice[1]);
+            if (getMaxDice(position, color, dice, dice[0] == high ? 2 : 1) == 1)
+                only = high;
+        }
+
+        addMoves(position, color, dice, 0, best, only, 0, out);
+    }
+
+    /**
+     * Recursively writes the possible moves which begin with a packed move, or of every stone if there is none.
+     * Method should only be called from inside generateMoves().
+     *
+     * @param position position after the packed move
+     * @param color colour of the player to move
+     * @param dice values of the dice
+     * @param used bit mask of the dice already used
+     * @param best number of dice used by a complete play
+     * @param only value of the only die which may be played (0 if any)
+     * @param move the packed move of the stone being moved (0 if none)
+     * @param out output list of moves
+     */
+    private static void addMoves(Position position, Game.Color color, int[] dice, int used, int best, int only, int move,
+                                 MoveList out) {
+        int bar = (color == Game.Color.BLACK) ? Position.BLACK_BAR : Position.WHITE_BAR;
+        int home = (color == Game.Color.BLACK) ? Position.BLACK_HOME : Position.WHITE_HOME;
+        boolean onBar = position.isPossibleStart(bar, color);
+        int first, last, tried = 0;
+
+        if (move == 0) {
+            // Stones on bar have top priority (must be moved into play first)
+            first = onBar ? bar : 1;
+            last = onBar ? bar : 24;
+        } else {
+            // Move the same stone on, unless it is home or other stones must still enter from the bar
+            first = Move.getEndPip(move);
+            last = first;
+            if (first == home || onBar)
+                return;
+        }
+
+        for (int i = 0; i < dice.length; i++) {
+            // Skip used dice and values already tried (dice of equal value give the same moves)
+            if ((used & (1 << i)) != 0 || (tried & (1 << dice[i])) != 0 || (only != 0 && dice[i] != only))
+                continue;
+            tried |= 1 << dice[i];
+
+            for (int start = first; start <= last; start++) {
+                if (!position.isPossibleStart(start, color))
+                    continue;
+
+                int end = getEndPip(position, color, start, dice[i]);
+                if (end == ILLEGAL)
+                    continue;
+
+                boolean hit = position.moveStone(start, end);
+                int next = used | (1 << i);
+
+                // Keep only moves which lead to a play using as many dice as possible
+                if (Integer.bitCount(next) + getMaxDice(position, color, dice, next) == best) {
+                    int extended = (move == 0) ? Move.encode(start, end, dice[i], hit) : Move.extend(move, end, dice[i], hit);
+                    out.add(extended);
+                    addMoves(position, color, dice, next, best, only, extended, out);
+                }
+
+                position.unmoveStone(start, end, hit);
+            }
+        }
+    }
+
+    /**
+     * Recursively finds the most dice which can still be played, moving the stones and moving them back.
+     * Method should only be called from inside generateMoves().
+     *
+     * @param position position to move from
+     * @param color colour of the player to move
+     * @param dice values of the dice
+     * @param used bit mask of the dice already used
+     * @return number of dice
+     */
+    private static int getMaxDice(Position position, Game.Color color, int[] dice, int used) {
+        int bar = (color == Game.Color.BLACK) ? Position.BLACK_BAR : Position.WHITE_BAR;
+        int left = dice.length - Integer.bitCount(used);
+        int most = 0, tried = 0;
+
+        if (left == 0)
+            return 0;
+
+        boolean onBar = position.isPossibleStart(bar, color);
+        int first = onBar ? bar : 1, last = onBar ? bar : 24;
+
+        for (int i = 0; i < dice.length; i++) {
+            if ((used & (1 << i)) != 0 || (tried & (1 << dice[i])) != 0)
+                continue;
+            tried |= 1 << dice[i];
+
+            for (int start = first; start <= last; start++) {
+                if (!position.isPossibleStart(start, color))
+                    continue;
+
+                int end = getEndPip(position, color, start, dice[i]);
+                if (end == ILLEGAL)
+                    continue;
+
+                boolean hit = position.moveStone(start, end);
+                int n = 1 + getMaxDice(position, color, dice, used | (1 << i));
+                position.unmoveStone(start, end, hit);
+
+                // Stop as soon as every die can be played
+                if (n > most) {
+                    most = n;
+                    if (most == left)
+                        return most;
+                }
+            }
+        }
+
+        return most;
+    }
+
+    /**
+     * Recursively adds every legal single-die move below a node, then drops moves which use fewer dice than the best.
+     * Method should only be called from inside generateTree().
+     *
+     * @param node node to expand
+     * @param color colour of the player to move
+     * @param dice values of the dice
+     * @param used bit mask of the dice already used on the way to this node
+     */
+    private static void expand(PlayTree node, Game.Color color, int[] dice, int used) {
+        Position position = node.getPosition();
+        int bar = (color == Game.Color.BLACK) ? Position.BLACK_BAR : Position.WHITE_BAR;
+        int depth = 0, tried = 0;
+
+        for (int i = 0; i < dice.length; i++) {
+            // Skip used dice and values already tried from this node (dice of equal value give the same moves)
+            if ((used & (1 << i)) != 0 || (tried & (1 << dice[i])) != 0)
+                continue;
+            tried |= 1 << dice[i];
+
+            // Stones on bar have top priority (must be moved into play first)
+            int first, last;
+            if (position.isPossibleStart(bar, color)) {
+                first = bar;
+                last = bar;
+            } else {
+                first = 1;
+                last = 24;
+            }
+
+            for (int start = first; start <= last; start++) {
+                if (!position.isPossibleStart(start, color))
+                    continue;
+
+                int end = getEndPip(position, color, start, dice[i]);
+                if (end == ILLEGAL)
+                    continue;
+
+                Position next = new Position(position);
+                boolean hit = next.moveStone(start, end);
+
+                PlayTree child = new PlayTree(new Move(Move.encode(start, end, dice[i], hit)), next);
+                expand(child, color, dice, used | (1 << i));
+
+                node.getChildren().add(child);
+                depth = Math.max(depth, child.getDepth() + 1);
+            }
+        }
+
+        // Keep only moves which lead to a play using as many dice as possible
+        final int best = depth;
+        node.getChildren().removeIf(child -> child.getDepth() + 1 < best);
+        node.setDepth(depth);
+    }
+
+    /**
+     * Calculates where a stone ends up when moved by one die, if the move is legal.
+     * Assumes the starting pip holds a stone of the player, and that it is on the bar if any of the player's stones are.
+     *
+     * @param position position to move in
+     * @param color colour of the player to move
+     * @param start starting pip
+     * @param die value of the die
+     * @return ending pip, or ILLEGAL if the move is not legal
+     */
+    public static int getEndPip(Position position, Game.Color color, int start, int die) {
+        int d = (color == Game.Color.BLACK) ? 1 : -1;
+        int bar = (color == Game.Color.BLACK) ? Position.BLACK_BAR : Position.WHITE_BAR;
+        int home = (color == Game.Color.BLACK) ? Position.BLACK_HOME : Position.WHITE_HOME;
+
+        // If stone is starting from the bar, shift the position pointer forward 1 pip (bars are 2 less than the first pip)
+        int end = (start == bar ? start + d : start) + d * die;
+
+        // Move stays on the board
+        if (end * d < home * d)
+            return position.isPossibleEnd(end, color) ? end : ILLEGAL;
+
+        // Move takes the stone home: all stones must be in the home board
+        if (!canBearOff(position, color))
+            return ILLEGAL;
+
+        // Overshooting is only allowed from the farthest occupied pip
+        if (end != home) {
+            for (int p = start - d; p * d >= (home - 6 * d) * d; p -= d)
+                if (position.isPossibleStart(p, color))
+                    return ILLEGAL;
+        }
+
+        return home;
+    }
+
+    /**
+     * Checks if a player may bear off (move stones home).
+     *
+     * @param position position to check
+     * @param color colour of the player
+     * @return true if all of the player's stones are in the home board or already home
+     */
+    public static boolean canBearOff(Position position, Game.Color color) {
+        return position.getOutsideHomeBoardCount(color) == 0;
+    }
+}
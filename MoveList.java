@@ -0,0 +1,187 @@
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * Class representing a list of packed moves (see Move.encode()) in a primitive array, which grows when needed and is
+ * reused by clearing it, so that filling it again allocates nothing.
+ */
+public class MoveList implements Serializable {
+
+    /*
+     * Variable Dictionary
+     *
+     * moves - the packed moves, in moves[0..size)
+     * size  - number of moves in the list
+     */
+    private int[] moves;
+    private int size;
+
+    /**
+     * Constructs a new empty list with room for the possible moves of any roll (see MoveGenerator.MAX_MOVES).
+     */
+    public MoveList() {
+        this(MoveGenerator.MAX_MOVES);
+    }
+
+    /**
+     * Constructs a new empty list.
+     *
+     * @param capacity number of moves the list holds before growing
+     */
+    public MoveList(int capacity) {
+        moves = new int[Math.max(capacity, 1)];
+    }
+
+    /**
+     * Removes all moves from this list.
+     */
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * Adds a packed move to the end of this list.
+     *
+     * @param move the packed move
+     */
+    public void add(int move) {
+        if (size == moves.length)
+            moves = Arrays.copyOf(moves, 2 * moves.length);
+
+        moves[size++] = move;
+    }
+
+    /**
+     * Adds a move to the end of this list.
+     *
+     * @param move the move
+     */
+    public void add(Move move) {
+        add(move.getPacked());
+    }
+
+    /**
+     * Adds every move of another list to the end of this list.
+     *
+     * @param other the other list
+     */
+    public void addAll(MoveList other) {
+        for (int i = 0; i < other.size; i++)
+            add(other.moves[i]);
+    }
+
+    /**
+     * Gets a packed move.
+     *
+     * @param i index of the move
+     * @return the packed move
+     */
+    public int get(int i) {
+        if (i >= size)
+            throw new IndexOutOfBoundsException("Index " + i + " out of bounds for size " + size);
+
+        return moves[i];
+    }
+
+    /**
+     * Gets a move as a Move object.
+     *
+     * @param i index of the move
+     * @return the move
+     */
+    public Move getMove(int i) {
+        return new Move(get(i));
+    }
+
+    /**
+     * Finds a packed move in this list.
+     *
+     * @param move the packed move
+     * @return index of the first equal move (-1 if none)
+     */
+    public int indexOf(int move) {
+        for (int i = 0; i < size; i++)
+            if (moves[i] == move)
+                return i;
+
+        return -1;
+    }
+
+    /**
+     * Checks if this list holds a packed move.
+     *
+     * @param move the packed move
+     * @return true if the list holds an equal move
+     */
+    public boolean contains(int move) {
+        return indexOf(move) >= 0;
+    }
+
+    /**
+     * Gets the number of moves in this list.
+     *
+     * @return size of the list
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Checks if this list holds no moves.
+     *
+     * @return true if empty
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Sorts the moves of this list by packed value (see Move.compareTo()).
+     */
+    public void sort() {
+        Arrays.sort(moves, 0, size);
+    }
+
+    /**
+     * Checks for equivalency between this list and another.
+     *
+     * @param o the other object
+     * @return true if both lists hold the same moves in the same order
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+
+        MoveList other = (MoveList) o;
+        return Arrays.equals(moves, 0, size, other.moves, 0, other.size);
+    }
+
+    /**
+     * Gets the hash code of this list (consistent with equals).
+     *
+     * @return the hash code
+     */
+    @Override
+    public int hashCode() {
+        int hash = 1;
+        for (int i = 0; i < size; i++)
+            hash = 31 * hash + moves[i];
+
+        return hash;
+    }
+
+    /**
+     * Gets the moves of this list in the usual notation (see Move.toString()).
+     *
+     * @return the moves as a string
+     */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; i < size; i++)
+            sb.append(i > 0 ? ", " : "").append(new Move(moves[i]));
+
+        return sb.append(']').toString();
+    }
+}
@@ -0,0 +1,507 @@
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Class which evaluates positions with a small neural network (a multilayer perceptron), as in TD-Gammon.
+ *
+ * The position is encoded from the view of the player who has just moved: for each player, four inputs per pip
+ * (one, two, three, and half the number beyond three stones), then the stones on the bar and borne off. One hidden
+ * layer and the outputs use the logistic function. The five outputs are the probabilities of winning, winning a gammon,
+ * winning a backgammon, losing a gammon and losing a backgammon.
+ *
+ * Most inputs are zero, so the hidden layer only adds the weights of the non-zero inputs. The weights of each input
+ * are stored together, so each addition is a simple loop over the hidden units. These loops and the dot products of
+ * the output layer run in a Kernel: VectorKernel (the Vector API) when the jdk.incubator.vector module is present, or
+ * else the scalar loops of ScalarKernel. VectorKernel is kept in the vector directory, so the other classes build
+ * without the module; RUN_VECTOR.bat compiles it and runs the game with "--add-modules jdk.incubator.vector".
+ *
+ * Weights file format (big-endian): the header (magic number, inputs, hidden units, outputs), then the hidden
+ * weights (by input, then hidden unit), hidden biases, output weights (by output, then hidden unit) and output biases,
+ * as floats.
+ */
+public class NeuralEvaluator implements Evaluator {
+
+    public static final int INPUTS = 196, OUTPUTS = 5;
+    public static final int WIN = 0, WIN_GAMMON = 1, WIN_BACKGAMMON = 2, LOSE_GAMMON = 3, LOSE_BACKGAMMON = 4;
+
+    public static final File DEFAULT_FILE = new File("res/nn/weights.bin");
+
+    private static final int MAGIC = 0x42474E4E; // "BGNN"
+    private static final int HEADER = 16;
+
+    // Start of the inputs of each part of the encoding
+    private static final int MY_PIPS = 0, OTHER_PIPS = 96, MY_BAR = 192, OTHER_BAR = 193, MY_OFF = 194, OTHER_OFF = 195;
+
+    // Table of the logistic function from -SIGMOID_RANGE to SIGMOID_RANGE, with SIGMOID_STEPS entries per unit
+    private static final int SIGMOID_RANGE = 16, SIGMOID_STEPS = 64;
+    private static final float[] SIGMOID = new float[2 * SIGMOID_RANGE * SIGMOID_STEPS + 2];
+
+    static {
+        for (int i = 0; i < SIGMOID.length; i++)
+            SIGMOID[i] = (float) (1 / (1 + Math.exp(SIGMOID_RANGE - (double) i / SIGMOID_STEPS)));
+    }
+
+    // Loops of the dense layers (see loadKernel())
+    private static final Kernel KERNEL = loadKernel();
+
+    /*
+     * Variable Dictionary
+     *
+     * hidden        - number of hidden units
+     * hiddenWeights - weights of the hidden layer, indexed by input * hidden + hidden unit
+     * hiddenBias    - biases of the hidden layer
+     * outputWeights - weights of the output layer, indexed by output * hidden + hidden unit
+     * outputBias    - biases of the output layer
+     *
+     * scratch       - working arrays of each thread
+     */
+    final int hidden;
+    final float[] hiddenWeights, hiddenBias, outputWeights, outputBias;
+
+    private final ThreadLocal<Activations> scratch;
+
+    /**
+     * Class containing the encoded inputs and the activations of one evaluation.
+     */
+    static class Activations {
+
+        /*
+         * Variable Dictionary
+         *
+         * inputIndex - indices of the non-zero inputs
+         * inputValue - values of the non-zero inputs
+         * inputs     - number of non-zero inputs
+         * hidden     - outputs of the hidden units
+         * output     - outputs of the network
+         * error      - error of each hidden unit (used in training)
+         */
+        final int[] inputIndex = new int[INPUTS];
+        final float[] inputValue = new float[INPUTS];
+        int inputs;
+        final float[] hidden, output = new float[OUTPUTS], error;
+
+        /**
+         * Constructs new activations.
+         *
+         * @param hidden number of hidden units
+         */
+        Activations(int hidden) {
+            this.hidden = new float[hidden];
+            this.error = new float[hidden];
+        }
+    }
+
+    /**
+     * Interface for the loops of the dense layers, so that a faster version can be used where the platform allows.
+     */
+    interface Kernel {
+
+        /**
+         * Adds a multiple of a row of weights to some sums: sums[j] += x * weights[offset + j].
+         *
+         * @param sums the sums
+         * @param weights the weights
+         * @param offset index within weights of the row
+         * @param x the multiple
+         * @param n number of sums
+         */
+        void addScaled(float[] sums, float[] weights, int offset, float x, int n);
+
+        /**
+         * Gets the dot product of some values and a row of weights.
+         *
+         * @param values the values
+         * @param weights the weights
+         * @param offset index within weights of the row
+         * @param n number of values
+         * @return the dot product
+         */
+        float dot(float[] values, float[] weights, int offset, int n);
+    }
+
+    /**
+     * Class containing the scalar loops of the dense layers, used when the Vector API is not available.
+     */
+    static class ScalarKernel implements Kernel {
+
+        /**
+         * Adds a multiple of a row of weights to some sums (a simple loop, which the JIT compiler may vectorise).
+         *
+         * @param sums the sums
+         * @param weights the weights
+         * @param offset index within weights of the row
+         * @param x the multiple
+         * @param n number of sums
+         */
+        @Override
+        public void addScaled(float[] sums, float[] weights, int offset, float x, int n) {
+            for (int j = 0; j < n; j++)
+                sums[j] += x * weights[offset + j];
+        }
+
+        /**
+         * Gets the dot product of some values and a row of weights, with four partial sums.
+         *
+         * @param values the values
+         * @param weights the weights
+         * @param offset index within weights of the row
+         * @param n number of values
+         * @return the dot product
+         */
+        @Override
+        public float dot(float[] values, float[] weights, int offset, int n) {
+            float s0 = 0, s1 = 0, s2 = 0, s3 = 0;
+            int j = 0;
+
+            for (; j + 3 < n; j += 4) {
+                s0 += values[j] * weights[offset + j];
+                s1 += values[j + 1] * weights[offset + j + 1];
+                s2 += values[j + 2] * weights[offset + j + 2];
+                s3 += values[j + 3] * weights[offset + j + 3];
+            }
+            for (; j < n; j++)
+                s0 += values[j] * weights[offset + j];
+
+            return (s0 + s1) + (s2 + s3);
+        }
+
+        /**
+         * Gets the name of this kernel, for reports.
+         *
+         * @return the name
+         */
+        @Override
+        public String toString() {
+            return "scalar";
+        }
+    }
+
+    /**
+     * Loads VectorKernel by name if the jdk.incubator.vector module is present (so this class still compiles and runs
+     * without it), or else makes a ScalarKernel.
+     *
+     * @return the kernel
+     */
+    private static Kernel loadKernel() {
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()) {
+            try {
+                return (Kernel) Class.forName("VectorKernel").getDeclaredConstructor().newInstance();
+            } catch (ReflectiveOperationException | LinkageError e) {
+                // Not compiled with the module: use the scalar loops
+            }
+        }
+
+        return new ScalarKernel();
+    }
+
+    /**
+     * Gets the name of the kernel running the dense layers ("scalar" or "vector"), for reports.
+     *
+     * @return the name
+     */
+    public static String getKernelName() {
+        return KERNEL.toString();
+    }
+
+    /**
+     * Constructs a new network with all weights zero. (Use create() or load())
+     *
+     * @param hidden number of hidden units
+     */
+    private NeuralEvaluator(int hidden) {
+        this.hidden = hidden;
+        hiddenWeights = new float[INPUTS * hidden];
+        hiddenBias = new float[hidden];
+        outputWeights = new float[OUTPUTS * hidden];
+        outputBias = new float[OUTPUTS];
+        scratch = ThreadLocal.withInitial(() -> new Activations(hidden));
+    }
+
+    /**
+     * Makes a new network with small random weights.
+     *
+     * @param hidden number of hidden units
+     * @param seed seed of the weights
+     * @return the network
+     */
+    public static NeuralEvaluator create(int hidden, long seed) {
+        NeuralEvaluator network = new NeuralEvaluator(hidden);
+        SplittableRandom random = new SplittableRandom(seed);
+
+        for (int i = 0; i < network.hiddenWeights.length; i++)
+            network.hiddenWeights[i] = (float) ((random.nextDouble() * 2 - 1) * 0.1);
+        for (int i = 0; i < network.outputWeights.length; i++)
+            network.outputWeights[i] = (float) ((random.nextDouble() * 2 - 1) * 0.1);
+
+        return network;
+    }
+
+    /**
+     * Loads a network from a weights file, reading the whole file at once.
+     *
+     * @param file the file (see save())
+     * @return the network
+     * @throws IOException if the file cannot be read or is not a weights file
+     */
+    public static NeuralEvaluator load(File file) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(file.toPath()));
+
+        if (buffer.remaining() < HEADER || buffer.getInt(0) != MAGIC || buffer.getInt(4) != INPUTS || buffer.getInt(12) != OUTPUTS)
+            throw new IOException("Not a weights file: " + file);
+
+        NeuralEvaluator network = new NeuralEvaluator(buffer.getInt(8));
+        if (buffer.remaining() != HEADER + 4L * network.getWeightCount())
+            throw new IOException("Wrong size of weights file: " + file);
+
+        buffer.position(HEADER);
+        buffer.asFloatBuffer()
+                .get(network.hiddenWeights)
+                .get(network.hiddenBias)
+                .get(network.outputWeights)
+                .get(network.outputBias);
+
+        return network;
+    }
+
+    /**
+     * Makes the evaluator used by the computer players: the network in DEFAULT_FILE if it exists, or else another
+     * evaluator.
+     *
+     * @param fallback evaluator to use if there is no network
+     * @return the evaluator
+     */
+    public static Evaluator loadDefault(Evaluator fallback) {
+        if (DEFAULT_FILE.exists()) {
+            try {
+                return load(DEFAULT_FILE);
+            } catch (IOException ioe) {
+                System.err.println(ioe.toString());
+            }
+        }
+
+        return fallback;
+    }
+
+    /**
+     * Saves the network to a weights file.
+     *
+     * @param file the file
+     * @throws IOException if the file cannot be written
+     */
+    public void save(File file) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER + 4 * getWeightCount());
+        buffer.putInt(MAGIC).putInt(INPUTS).putInt(hidden).putInt(OUTPUTS);
+        buffer.asFloatBuffer().put(hiddenWeights).put(hiddenBias).put(outputWeights).put(outputBias);
+
+        if (file.getAbsoluteFile().getParentFile() != null)
+            file.getAbsoluteFile().getParentFile().mkdirs();
+        Files.write(file.toPath(), buffer.array());
+    }
+
+    /**
+     * Gets the number of weights and biases.
+     *
+     * @return number of parameters
+     */
+    public int getWeightCount() {
+        return hiddenWeights.length + hiddenBias.length + outputWeights.length + outputBias.length;
+    }
+
+    /**
+     * Gets the number of hidden units.
+     *
+     * @return number of hidden units
+     */
+    public int getHidden() {
+        return hidden;
+    }
+
+    /**
+     * Estimates the equity of a position for a player.
+     *
+     * @param position the position
+     * @param color colour of the player who has just moved
+     * @return the equity
+     */
+    @Override
+    public double evaluate(Position position, Game.Color color) {
+        // Finished game
+        Game.Color winner = position.checkWinner();
+        if (winner != Game.Color.NONE)
+            return (winner == color ? 1 : -1) * position.getWinPoints();
+
+        Activations activations = scratch.get();
+        encode(position, color, activations);
+        forward(activations);
+
+        return getEquity(activations.output);
+    }
+
+    /**
+     * Gets the equity from the outputs of the network.
+     *
+     * @param output the outputs
+     * @return the equity
+     */
+    static double getEquity(float[] output) {
+        return 2 * output[WIN] - 1 + output[WIN_GAMMON] - output[LOSE_GAMMON] + output[WIN_BACKGAMMON] - output[LOSE_BACKGAMMON];
+    }
+
+    /**
+     * Encodes a position as the non-zero inputs of the network.
+     *
+     * @param position the position
+     * @param color colour of the player who has just moved
+     * @param activations output inputs
+     */
+    static void encode(Position position, Game.Color color, Activations activations) {
+        Game.Color other = (color == Game.Color.BLACK) ? Game.Color.WHITE : Game.Color.BLACK;
+        activations.inputs = 0;
+
+        for (int distance = 1; distance <= 24; distance++) {
+            encodePip(activations, MY_PIPS + 4 * (distance - 1), position.getStoneCount(getPip(color, distance), color));
+            encodePip(activations, OTHER_PIPS + 4 * (distance - 1), position.getStoneCount(getPip(other, distance), other));
+        }
+
+        addInput(activations, MY_BAR, position.getBarCount(color) / 2f);
+        addInput(activations, OTHER_BAR, position.getBarCount(other) / 2f);
+        addInput(activations, MY_OFF, position.getBorneOffCount(color) / 15f);
+        addInput(activations, OTHER_OFF, position.getBorneOffCount(other) / 15f);
+    }
+
+    /**
+     * Encodes the stones on one pip as four inputs.
+     *
+     * @param activations output inputs
+     * @param first index of the first input of the pip
+     * @param n number of stones
+     */
+    private static void encodePip(Activations activations, int first, int n) {
+        if (n >= 1) addInput(activations, first, 1);
+        if (n >= 2) addInput(activations, first + 1, 1);
+        if (n >= 3) addInput(activations, first + 2, 1);
+        if (n >= 4) addInput(activations, first + 3, (n - 3) / 2f);
+    }
+
+    /**
+     * Adds an input, if it is not zero.
+     *
+     * @param activations output inputs
+     * @param index index of the input
+     * @param value value of the input
+     */
+    private static void addInput(Activations activations, int index, float value) {
+        if (value != 0) {
+            activations.inputIndex[activations.inputs] = index;
+            activations.inputValue[activations.inputs++] = value;
+        }
+    }
+
+    /**
+     * Runs the network on encoded inputs.
+     *
+     * @param activations the inputs (see encode()), and output activations
+     */
+    void forward(Activations activations) {
+        float[] h = activations.hidden;
+        System.arraycopy(hiddenBias, 0, h, 0, hidden);
+
+        // Hidden layer: add the weights of each non-zero input
+        for (int k = 0; k < activations.inputs; k++)
+            KERNEL.addScaled(h, hiddenWeights, activations.inputIndex[k] * hidden, activations.inputValue[k], hidden);
+
+        for (int j = 0; j < hidden; j++)
+            h[j] = sigmoid(h[j]);
+
+        // Output layer: dot products
+        for (int o = 0; o < OUTPUTS; o++)
+            activations.output[o] = sigmoid(outputBias[o] + KERNEL.dot(h, outputWeights, o * hidden, hidden));
+    }
+
+    /**
+     * Moves the weights one step of gradient descent towards a target output, by backpropagation of the squared error.
+     * Only the weights of the non-zero inputs change. Assumes forward() has just been run on the activations.
+     *
+     * Weights are updated without locking, so several threads may train the network at once (Hogwild).
+     *
+     * @param activations the activations (see forward())
+     * @param target target outputs
+     * @param rate learning rate
+     * @return squared error of the outputs before the step
+     */
+    double train(Activations activations, float[] target, float rate) {
+        float[] h = activations.hidden, error = activations.error;
+        double squaredError = 0;
+        Arrays.fill(error, 0);
+
+        // Output layer
+        for (int o = 0; o < OUTPUTS; o++) {
+            float y = activations.output[o], difference = target[o] - y;
+            float delta = difference * y * (1 - y);
+            int offset = o * hidden;
+            squaredError += difference * difference;
+
+            for (int j = 0; j < hidden; j++) {
+                error[j] += delta * outputWeights[offset + j];
+                outputWeights[offset + j] += rate * delta * h[j];
+            }
+            outputBias[o] += rate * delta;
+        }
+
+        // Hidden layer
+        for (int j = 0; j < hidden; j++) {
+            error[j] *= h[j] * (1 - h[j]);
+            hiddenBias[j] += rate * error[j];
+        }
+
+        for (int k = 0; k < activations.inputs; k++) {
+            int offset = activations.inputIndex[k] * hidden;
+            float x = rate * activations.inputValue[k];
+            for (int j = 0; j < hidden; j++)
+                hiddenWeights[offset + j] += x * error[j];
+        }
+
+        return squaredError;
+    }
+
+    /**
+     * Gets the thread's working arrays.
+     *
+     * @return the activations
+     */
+    Activations getActivations() {
+        return scratch.get();
+    }
+
+    /**
+     * Logistic function, from a table (accurate to about 1e-5).
+     *
+     * @param x input
+     * @return 1 / (1 + e^-x)
+     */
+    static float sigmoid(float x) {
+        if (x <= -SIGMOID_RANGE)
+            return SIGMOID[0];
+        if (x >= SIGMOID_RANGE)
+            return SIGMOID[SIGMOID.length - 1];
+
+        // Interpolate linearly in the table
+        float t = (x + SIGMOID_RANGE) * SIGMOID_STEPS;
+        int i = (int) t;
+        return SIGMOID[i] + (t - i) * (SIGMOID[i + 1] - SIGMOID[i]);
+    }
+
+    /**
+     * Gets the pip a number of pips away from where a player bears off.
+     *
+     * @param color colour of the player
+     * @param distance distance (1 to 24)
+     * @return the pip
+     */
+    private static int getPip(Game.Color color, int distance) {
+        return (color == Game.Color.BLACK) ? Position.BLACK_HOME - distance : Position.WHITE_HOME + distance;
+    }
+}
@@ -0,0 +1,340 @@
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * Class representing a one-sided bearoff database: for every way of placing up to 15 of one player's stones in their
+ * home board, the distribution of the number of rolls needed to bear them all off with the play that minimises the
+ * expected number of rolls.
+ *
+ * The database is made once by generate() and read through a memory-mapped file, so opening it is nearly free and
+ * the table is shared by all threads (and processes) without being copied onto the heap. Each position has a
+ * fixed-size record found from its index, so every lookup takes constant time.
+ *
+ * File format (big-endian): the header (magic number, points, stones, maximum rolls, number of positions), then one
+ * record per position in index order: the expected number of rolls (float), then the probability of finishing in
+ * exactly 0, 1, ..., MAX_ROLLS - 1 rolls (unsigned shorts, in units of 1 / 65535).
+ */
+public class OneSidedBearoff {
+
+    public static final int POINTS = 6, STONES = 15, MAX_ROLLS = 20;
+
+    // Number of positions: ways of choosing the 6 dividers among 15 stones and 6 dividers (stones left over are off)
+    public static final int SIZE = 54264;
+
+    public static final File DEFAULT_FILE = new File("res/bearoff/one-sided.db");
+
+    private static final int MAGIC = 0x42474F53; // "BGOS"
+    private static final int HEADER = 20, RECORD = 4 + 2 * MAX_ROLLS;
+
+    // Binomial coefficients, BINOMIAL[n][k] = n choose k
+    private static final int[][] BINOMIAL = new int[POINTS + STONES + 1][POINTS + 1];
+
+    static {
+        for (int n = 0; n < BINOMIAL.length; n++) {
+            BINOMIAL[n][0] = 1;
+            for (int k = 1; k <= Math.min(n, POINTS); k++)
+                BINOMIAL[n][k] = BINOMIAL[n - 1][k - 1] + BINOMIAL[n - 1][k];
+        }
+    }
+
+    /*
+     * Variable Dictionary
+     *
+     * buffer - the mapped file
+     */
+    private ByteBuffer buffer;
+
+    /**
+     * Constructs a database over a mapped file. (Use open())
+     *
+     * @param buffer the mapped file
+     */
+    private OneSidedBearoff(ByteBuffer buffer) {
+        this.buffer = buffer;
+    }
+
+    /**
+     * Opens a database file, mapping it into memory.
+     *
+     * @param file the file (see generate())
+     * @return the database
+     * @throws IOException if the file cannot be read or is not a one-sided bearoff database
+     */
+    public static OneSidedBearoff open(File file) throws IOException {
+        try (RandomAccessFile in = new RandomAccessFile(file, "r"); FileChannel channel = in.getChannel()) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+
+            if (channel.size() != HEADER + (long) SIZE * RECORD || buffer.getInt(0) != MAGIC || buffer.getInt(4) != POINTS
+                    || buffer.getInt(8) != STONES || buffer.getInt(12) != MAX_ROLLS || buffer.getInt(16) != SIZE)
+                throw new IOException("Not a one-sided bearoff database: " + file);
+
+            // The mapping stays valid after the channel is closed
+            return new OneSidedBearoff(buffer);
+        }
+    }
+
+    /**
+     * Gets the index of a home board.
+     *
+     * @param counts number of stones on each point, counts[0] being the point nearest home (at most 15 in total)
+     * @return the index (0 to SIZE - 1)
+     */
+    public static int getIndex(int[] counts) {
+        // Combinatorial number system: the dividers after each point are at increasing places in the line of stones
+        int index = 0, place = -1;
+
+        for (int i = 0; i < POINTS; i++) {
+            place += counts[i] + 1;
+            index += BINOMIAL[place][i + 1];
+        }
+
+        return index;
+    }
+
+    /**
+     * Gets the index of a player's home board in a position.
+     * Assumes the player can bear off (see MoveGenerator.canBearOff()).
+     *
+     * @param position the position
+     * @param color colour of the player
+     * @return the index (0 to SIZE - 1)
+     */
+    public static int getIndex(Position position, Game.Color color) {
+        int index = 0, place = -1;
+
+        for (int i = 0; i < POINTS; i++) {
+            int pip = (color == Game.Color.BLACK) ? Position.BLACK_HOME - 1 - i : Position.WHITE_HOME + 1 + i;
+            place += position.getStoneCount(pip, color) + 1;
+            index += BINOMIAL[place][i + 1];
+        }
+
+        return index;
+    }
+
+    /**
+     * Gets the number of home boards with up to a number of stones. Their indices are 0 to this number - 1.
+     *
+     * @param stones maximum number of stones (at most 15)
+     * @return number of home boards
+     */
+    public static int getSize(int stones) {
+        return BINOMIAL[stones + POINTS][POINTS];
+    }
+
+    /**
+     * Gets the home board with an index. (Inverse of getIndex())
+     *
+     * @param index the index
+     * @return number of stones on each point, counts[0] being the point nearest home
+     */
+    public static int[] getBoard(int index) {
+        int[] counts = new int[POINTS];
+        int next = POINTS + STONES;
+
+        for (int i = POINTS - 1; i >= 0; i--) {
+            // Largest place of this divider which keeps the index in range
+            int place = next - 1;
+            while (BINOMIAL[place][i + 1] > index)
+                place--;
+
+            index -= BINOMIAL[place][i + 1];
+            if (i < POINTS - 1)
+                counts[i + 1] = next - place - 1;
+            next = place;
+        }
+        counts[0] = next;
+
+        return counts;
+    }
+
+    /**
+     * Makes a position with black's home board set up, nothing else on the board, and the remaining stones home.
+     * (Used to generate the bearoff databases)
+     *
+     * @param counts number of stones on each point, counts[0] being the point nearest home
+     * @return the position
+     */
+    static Position getPosition(int[] counts) {
+        Position position = new Position();
+        position.clear();
+
+        int stones = 0;
+        for (int i = 0; i < POINTS; i++) {
+            position.setStones(Position.BLACK_HOME - 1 - i, Game.Color.BLACK, counts[i]);
+            stones += counts[i];
+        }
+        position.setStones(Position.BLACK_HOME, Game.Color.BLACK, STONES - stones);
+
+        return position;
+    }
+
+    /**
+     * Gets the expected number of rolls needed to bear off all stones.
+     *
+     * @param index index of the home board (see getIndex())
+     * @return expected number of rolls
+     */
+    public double getExpectedRolls(int index) {
+        return buffer.getFloat(HEADER + index * RECORD);
+    }
+
+    /**
+     * Gets the probability of bearing off all stones in exactly a number of rolls.
+     *
+     * @param index index of the home board (see getIndex())
+     * @param rolls number of rolls
+     * @return the probability
+     */
+    public double getProbability(int index, int rolls) {
+        if (rolls < 0 || rolls >= MAX_ROLLS)
+            return 0;
+
+        return (buffer.getShort(HEADER + index * RECORD + 4 + 2 * rolls) & 0xFFFF) / 65535.0;
+    }
+
+    /**
+     * Generates the database and writes it to a file.
+     * Home boards are solved in order of pip count, as every play reaches a board with fewer pips; the boards with
+     * the same pip count are solved in parallel.
+     *
+     * @param file the file to write
+     * @throws IOException if the file cannot be written
+     */
+    public static void generate(File file) throws IOException {
+        double[] expected = new double[SIZE];
+        double[][] distributions = new double[SIZE][MAX_ROLLS];
+
+        // Home boards by pip count
+        int maxPips = STONES * POINTS;
+        IntArrayList[] levels = new IntArrayList[maxPips + 1];
+        for (int p = 0; p <= maxPips; p++)
+            levels[p] = new IntArrayList();
+        int[][] boards = new int[SIZE][];
+        addBoards(new int[POINTS], 0, 0, boards, levels);
+
+        for (IntArrayList level : levels) {
+            IntStream.range(0, level.size).parallel().forEach(i -> {
+                int index = level.values[i];
+                solve(boards[index], expected, distributions, index);
+            });
+        }
+
+        file.getAbsoluteFile().getParentFile().mkdirs();
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(POINTS);
+            out.writeInt(STONES);
+            out.writeInt(MAX_ROLLS);
+            out.writeInt(SIZE);
+
+            for (int index = 0; index < SIZE; index++) {
+                out.writeFloat((float) expected[index]);
+                for (int rolls = 0; rolls < MAX_ROLLS; rolls++)
+                    out.writeShort((int) Math.round(distributions[index][rolls] * 65535));
+            }
+        }
+    }
+
+    /**
+     * Recursively lists every home board. Method should only be called from inside generate().
+     *
+     * @param counts stones on each point (filled in up to point)
+     * @param point next point to fill
+     * @param stones number of stones placed so far
+     * @param boards output array of home boards by index
+     * @param levels output lists of indices by pip count
+     */
+    private static void addBoards(int[] counts, int point, int stones, int[][] boards, IntArrayList[] levels) {
+        if (point == POINTS) {
+            int index = getIndex(counts), pips = 0;
+            for (int i = 0; i < POINTS; i++)
+                pips += (i + 1) * counts[i];
+
+            boards[index] = counts.clone();
+            levels[pips].add(index);
+            return;
+        }
+
+        for (int n = 0; stones + n <= STONES; n++) {
+            counts[point] = n;
+            addBoards(counts, point + 1, stones + n, boards, levels);
+        }
+        counts[point] = 0;
+    }
+
+    /**
+     * Solves one home board from the solutions of the boards with fewer pips. Method should only be called from
+     * inside generate().
+     *
+     * @param counts stones on each point
+     * @param expected expected rolls of each board (output for this board)
+     * @param distributions distribution of the rolls of each board (output for this board)
+     * @param index index of this board
+     */
+    private static void solve(int[] counts, double[] expected, double[][] distributions, int index) {
+        if (index == 0) {
+            distributions[index][0] = 1;
+            return;
+        }
+
+        Position position = getPosition(counts);
+
+        for (int r = 0; r < Rolls.COUNT; r++) {
+            int[] roll = Rolls.getDice(r);
+            double probability = Rolls.getProbability(r);
+
+            // Play which leaves the fewest expected rolls
+            int best = -1;
+            for (Play play : MoveGenerator.generatePlays(position, Game.Color.BLACK, roll)) {
+                int next = getIndex(play.getPosition(), Game.Color.BLACK);
+                if (best < 0 || expected[next] < expected[best])
+                    best = next;
+            }
+
+            expected[index] += probability * (1 + expected[best]);
+            for (int rolls = 1; rolls < MAX_ROLLS; rolls++)
+                distributions[index][rolls] += probability * distributions[best][rolls - 1];
+        }
+    }
+
+    /**
+     * Growable list of ints. (Used by generate())
+     */
+    private static class IntArrayList {
+        int[] values = new int[16];
+        int size;
+
+        /**
+         * Adds a value to the end of the list.
+         *
+         * @param value the value
+         */
+        void add(int value) {
+            if (size == values.length)
+                values = Arrays.copyOf(values, size * 2);
+            values[size++] = value;
+        }
+    }
+
+    /**
+     * Driver method. Generates the database.
+     *
+     * @param args file to write (optional)
+     * @throws IOException if the file cannot be written
+     */
+    public static void main(String[] args) throws IOException {
+        File file = args.length > 0 ? new File(args[0]) : DEFAULT_FILE;
+        long start = System.nanoTime();
+
+        generate(file);
+        System.out.printf("Wrote %s (%d positions) in %.1f s%n", file, SIZE, (System.nanoTime() - start) / 1e9);
+
+        OneSidedBearoff database = open(file);
+        int[] all = {0, 0, 0, 0, 0, STONES};
+        System.out.printf("15 stones on the 6 point: %.3f rolls%n", database.getExpectedRolls(getIndex(all)));
+    }
+}
@@ -1,14 +1,17 @@
 import java.awt.*;
 import java.io.Serializable;
-import java.util.LinkedList;
 
 /**
- * Class representing a pip.
+ * Class representing a pip. The stones themselves are kept in a Position; a pip only draws them.
  */
 public class Pip implements Serializable {
 
+    // Margin around the hitbox into which highlight rings may be drawn
+    private static final int DRAW_MARGIN = 4;
+
     // Useful constants (unique codes)
-    public static final int BLACK_HOME = 25, WHITE_HOME = 0, BLACK_BAR = -1, WHITE_BAR = 26;
+    public static final int BLACK_HOME = Position.BLACK_HOME, WHITE_HOME = Position.WHITE_HOME,
+            BLACK_BAR = Position.BLACK_BAR, WHITE_BAR = Position.WHITE_BAR;
 
     /*
      * Variable Dictionary
@@ -21,8 +24,6 @@ public class Pip implements Serializable {
      * w                     - width
      * h                     - scalar height
      *
-     * stones                - list of stones on this pip
-     *
      * isPointingUp          - whether the pip is "oriented up" (default state)
      * highlightStart        - whether the pip is to be highlighted as a beginning
      * highlightIntermediate - whether the pip is to be highlighted as an intermediate
@@ -35,8 +36,6 @@ public class Pip implements Serializable {
     private int number, drawY, drawHeight;
     private int x, y, w = Images.PIP_WIDTH, h = Images.PIP_HEIGHT;
 
-    private LinkedList<Stone> stones;
-
     private boolean isPointingUp, highlightStart, highlightIntermediate, highlightEnd;
     private Images.k imageMain, imageHighlightHard, imageHighlightSoft;
     private Hitbox hitbox;
@@ -53,7 +52,6 @@ public class Pip implements Serializable {
     public Pip(int number) {
         this.number = number;
 
-        this.stones = new LinkedList<>();
         this.highlightStart = false;
         this.highlightIntermediate = false;
         this.highlightEnd = false;
@@ -87,24 +85,6 @@ public class Pip implements Serializable {
         updateHitbox();
     }
 
-    /**
-     * Adds a stone.
-     *
-     * @param stone the stone
-     */
-    public void addStone(Stone stone) {
-        stones.add(stone);
-    }
-
-    /**
-     * Removes the top stone.
-     *
-     * @return the top stone
-     */
-    public Stone popStone() {
-        return stones.pop();
-    }
-
     /**
      * Sets the start highlight.
      *
@@ -133,23 +113,12 @@ public class Pip implements Serializable {
     }
 
     /**
-     * Checks if this pip is a possible starting point for a move by the specified player.
-     *
-     * @param color color of player
-     * @return whether a move is possible (a move is possible if there are stones of the player's colour on the pip)
-     */
-    public boolean isPossibleStart(Board.Color color) {
-    	return stones.size() >= 1 && stones.peek().getColor() == color;
-    }
-
-    /**
-     * Checks if this pip is a possible ending point for a move by the specified player.
+     * Gets the number of this pip.
      *
-     * @param color color of player
-     * @return whether a move is possible (a move is possible if there are stones of the player's colour, or only one stone of the opposing colour)
+     * @return the number
      */
-    public boolean isPossibleEnd(Board.Color color) {
-        return stones.size() <= 1 || color == stones.peek().getColor();
+    public int getNumber() {
+        return number;
     }
 
     /**
@@ -199,34 +168,44 @@ public class Pip implements Serializable {
     }
 
     /**
-     * Gets the number of stones on the pip.
+     * Gets the area this pip draws in, including its stones and highlights.
      *
-     * @return number of stones
+     * @return the area
      */
-    public int getStoneSize() {
-        return stones.size();
+    public Rectangle getDrawBounds() {
+        return new Rectangle(x - DRAW_MARGIN, y - DRAW_MARGIN, w + 2 * DRAW_MARGIN, h + 2 * DRAW_MARGIN);
     }
 
     /**
-     * Gets the colour of the stones on the pip.
+     * Gets a value which changes whenever this pip would be drawn differently: its stones, hover and highlights.
      *
-     * @return colour of stones, or Board.Color.NONE if no stones
+     * @param stoneCount number of stones on this pip
+     * @param color colour of the stones on this pip
+     * @return the value
      */
-    public Board.Color getColor() {
-        if (stones.isEmpty())
-            return Board.Color.NONE;
-        return stones.peek().getColor();
+    public int getDrawState(int stoneCount, Game.Color color) {
+        return stoneCount << 6 | color.ordinal() << 4 | (hitbox.isHovered() ? 8 : 0) | (highlightStart ? 4 : 0)
+                | (highlightIntermediate ? 2 : 0) | (highlightEnd ? 1 : 0);
     }
 
     /**
-     * Draws this pip.
+     * Draws the parts of this pip which never change (its main graphic), for the static layer of the board.
      *
      * @param g graphics environment
      */
-    public void draw(Graphics g) { //draws relative to the board
-        // Draw pip
-        g.drawImage(Images.getImage(imageMain), x, drawY, w, drawHeight, null);
+    public void drawStatic(Graphics g) {
+        if (imageMain != null)
+            g.drawImage(Images.getImage(imageMain), x, drawY, w, drawHeight, null);
+    }
 
+    /**
+     * Draws the parts of this pip which change: highlights and stones. Assumes the static parts are already drawn.
+     *
+     * @param g graphics environment
+     * @param stoneCount number of stones on this pip
+     * @param color colour of the stones on this pip
+     */
+    public void draw(Graphics g, int stoneCount, Game.Color color) { //draws relative to the board
         // Draw hard highlight filter if hovered over or end pip
         if (hitbox.isHovered() || highlightEnd)
             g.drawImage(Images.getImage(imageHighlightHard), x, drawY, w, drawHeight, null);
@@ -238,10 +217,12 @@ public class Pip implements Serializable {
         // Draw stones on pip, from base to tip
         int stoneY = drawY + drawHeight;
 
-        for (int i = 0; i < stones.size(); i++) {
-            stones.get(i).draw(g, x + (Images.PIP_WIDTH - Images.STONE_WIDTH) / 2, stoneY,
-                    drawHeight > 0, i == stones.size() - 1 && highlightStart);
-            stoneY -= (drawHeight - (stones.size() > 6 ? 1 : 0) * (drawHeight > 0 ? 1 : -1) * Images.STONE_HEIGHT) / (stones.size() <= 6 ? 6 : stones.size());
+        Stone stone = Stone.get(color);
+
+        for (int i = 0; i < stoneCount; i++) {
+            stone.draw(g, x + (Images.PIP_WIDTH - Images.STONE_WIDTH) / 2, stoneY,
+                    drawHeight > 0, i == stoneCount - 1 && highlightStart);
+            stoneY -= (drawHeight - (stoneCount > 6 ? 1 : 0) * (drawHeight > 0 ? 1 : -1) * Images.STONE_HEIGHT) / (stoneCount <= 6 ? 6 : stoneCount);
         }
     }
 }
@@ -0,0 +1,55 @@
+import java.io.Serializable;
+import java.util.ArrayList;
+
+/**
+ * Class representing a complete play: every stone moved with one roll of the dice.
+ */
+public class Play implements Serializable {
+
+    /*
+     * Variable Dictionary
+     *
+     * moves    - single-die moves making up the play, in the order they are made
+     * position - position after the play
+     */
+    private ArrayList<Move> moves;
+    private Position position;
+
+    /**
+     * Constructs a new play.
+     *
+     * @param moves single-die moves making up the play
+     * @param position position after the play
+     */
+    public Play(ArrayList<Move> moves, Position position) {
+        this.moves = moves;
+        this.position = position;
+    }
+
+    /**
+     * Gets the single-die moves making up the play.
+     *
+     * @return the list of moves (empty if no move is possible)
+     */
+    public ArrayList<Move> getMoves() {
+        return moves;
+    }
+
+    /**
+     * Gets the position after the play.
+     *
+     * @return the position
+     */
+    public Position getPosition() {
+        return position;
+    }
+
+    /**
+     * Gets the number of dice used by the play.
+     *
+     * @return number of dice
+     */
+    public int size() {
+        return moves.size();
+    }
+}
@@ -0,0 +1,148 @@
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+
+/**
+ * Class representing the tree of legal plays for a roll. Each node is the position after one single-die move.
+ *
+ * Only moves which lead to a complete play (as many dice as possible, the higher die if only one can be used) are kept.
+ */
+public class PlayTree implements Serializable {
+
+    /*
+     * Variable Dictionary
+     *
+     * move     - single-die move leading to this node (null at the root)
+     * position - position at this node
+     * children - nodes reachable by one more legal move
+     * depth    - number of dice still played below this node
+     */
+    private Move move;
+    private Position position;
+    private ArrayList<PlayTree> children;
+    private int depth;
+
+    /**
+     * Constructs a new node.
+     *
+     * @param move single-die move leading to this node (null at the root)
+     * @param position position at this node
+     */
+    public PlayTree(Move move, Position position) {
+        this.move = move;
+        this.position = position;
+        this.children = new ArrayList<>();
+        this.depth = 0;
+    }
+
+    /**
+     * Gets the single-die move leading to this node.
+     *
+     * @return the move (null at the root)
+     */
+    public Move getMove() {
+        return move;
+    }
+
+    /**
+     * Gets the position at this node.
+     *
+     * @return the position
+     */
+    public Position getPosition() {
+        return position;
+    }
+
+    /**
+     * Gets the nodes reachable by one more legal move.
+     *
+     * @return list of children (empty once the play is complete)
+     */
+    public ArrayList<PlayTree> getChildren() {
+        return children;
+    }
+
+    /**
+     * Gets the number of dice still played below this node.
+     *
+     * @return the depth
+     */
+    public int getDepth() {
+        return depth;
+    }
+
+    /**
+     * Sets the number of dice still played below this node. (Should be called from MoveGenerator)
+     *
+     * @param depth the depth
+     */
+    void setDepth(int depth) {
+        this.depth = depth;
+    }
+
+    /**
+     * Gets the node reached by making a move from this node, die by die, so the moves left for the remaining dice
+     * need not be generated again.
+     *
+     * @param move the move (using one or more dice)
+     * @return the node reached, or null if the move is not in the tree
+     */
+    public PlayTree getChild(Move move) {
+        PlayTree node = this;
+        int start = move.getStartPip();
+
+        for (int i = 0; i < move.getDiceCount(); i++) {
+            PlayTree next = null;
+
+            // A starting pip and a die value give one ending pip, so they identify the child
+            for (PlayTree child : node.children) {
+                if (child.move.getStartPip() == start && child.move.getDie(0) == move.getDie(i)) {
+                    next = child;
+                    break;
+                }
+            }
+
+            if (next == null)
+                return null;
+
+            node = next;
+            start = node.move.getEndPip();
+        }
+
+        return node;
+    }
+
+    /**
+     * Gets every distinct complete play below this node. Plays are distinct if their resulting positions differ
+     * (positions are hashed by their Zobrist key).
+     *
+     * @return list of plays (a single empty play if no move is possible)
+     */
+    public ArrayList<Play> getPlays() {
+        LinkedHashMap<Position, Play> plays = new LinkedHashMap<>();
+        collectPlays(this, new ArrayList<>(), plays);
+        return new ArrayList<>(plays.values());
+    }
+
+    /**
+     * Recursively puts the plays of the subtree into an output map.
+     * Method should only be called from inside getPlays().
+     *
+     * @param node current node
+     * @param moves moves leading from the starting node to the current node
+     * @param output output map (resulting position to play)
+     */
+    private static void collectPlays(PlayTree node, ArrayList<Move> moves, LinkedHashMap<Position, Play> output) {
+        // Base case: complete play
+        if (node.children.isEmpty()) {
+            output.putIfAbsent(node.position, new Play(new ArrayList<>(moves), node.position));
+            return;
+        }
+
+        for (PlayTree child : node.children) {
+            moves.add(child.move);
+            collectPlays(child, moves, output);
+            moves.remove(moves.size() - 1);
+        }
+    }
+}
@@ -0,0 +1,473 @@
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * Class representing the stones on the board as signed counts per pip.
+ *
+ * Black stones are counted positively and white stones negatively, so the sign of a slot is the colour of its stones.
+ * This is the compact core which move generation runs on; Pip and Stone only render it.
+ */
+public class Position implements Serializable {
+
+    // Useful constants (unique codes, see also Pip)
+    public static final int BLACK_HOME = 25, WHITE_HOME = 0, BLACK_BAR = -1, WHITE_BAR = 26;
+
+    // Number of slots (bars, homes, and main pips) and the shift from a pip number to its slot
+    public static final int SIZE = 28, OFFSET = 1;
+
+    // Number of stones per player
+    public static final int STONES = 15;
+
+    // Statistics kept for each player, indexed by statistic * 2 + player (0 = black, 1 = white)
+    private static final int PIPS = 0, BORNE_OFF = 2, BAR = 4, BLOTS = 6, OUTSIDE_HOME_BOARD = 8, STATISTICS = 10;
+
+    // Layout of an undo record (see executeMove()): the number of steps, then each step's starting and ending slots
+    // and whether it knocked a stone to the bar
+    private static final int UNDO_COUNT_BITS = 3, UNDO_PIP_BITS = 5, UNDO_PIP_MASK = (1 << UNDO_PIP_BITS) - 1,
+            UNDO_STEP_BITS = 2 * UNDO_PIP_BITS + 1;
+
+    // Distance home from each slot, and whether each slot is outside the home board, indexed by player * SIZE + slot
+    private static final int[] DISTANCE = new int[2 * SIZE];
+    private static final boolean[] OUTSIDE = new boolean[2 * SIZE];
+
+    static {
+        for (int pip = BLACK_BAR; pip <= WHITE_BAR; pip++) {
+            int black = (pip == BLACK_BAR) ? 25 : (pip == WHITE_BAR) ? 0 : BLACK_HOME - pip;
+            int white = (pip == WHITE_BAR) ? 25 : (pip == BLACK_BAR) ? 0 : pip;
+
+            DISTANCE[pip + OFFSET] = black;
+            DISTANCE[SIZE + pip + OFFSET] = white;
+            OUTSIDE[pip + OFFSET] = black > 6;
+            OUTSIDE[SIZE + pip + OFFSET] = white > 6;
+        }
+    }
+
+    /*
+     * Variable Dictionary
+     *
+     * counts - signed number of stones on each pip, indexed by pip number + OFFSET
+     * key    - Zobrist key of the stones on the board, updated with every change to counts
+     * stats  - pip counts, borne off, bar, blots and stones outside the home board of each player, updated with
+     *          every change to counts (see STATISTICS)
+     */
+    private byte[] counts;
+    private long key;
+    private int[] stats;
+
+    /**
+     * Constructs a new position with all stones in their starting places.
+     */
+    public Position() {
+        counts = new byte[SIZE];
+        stats = new int[STATISTICS];
+        reset();
+    }
+
+    /**
+     * Constructs a copy of another position.
+     *
+     * @param other the other position
+     */
+    public Position(Position other) {
+        counts = other.counts.clone();
+        key = other.key;
+        stats = other.stats.clone();
+    }
+
+    /**
+     * Puts all stones back in their starting places.
+     */
+    public void reset() {
+        clear();
+
+        setStones(1, Game.Color.BLACK, 2);
+        setStones(12, Game.Color.BLACK, 5);
+        setStones(17, Game.Color.BLACK, 3);
+        setStones(19, Game.Color.BLACK, 5);
+
+        setStones(24, Game.Color.WHITE, 2);
+        setStones(13, Game.Color.WHITE, 5);
+        setStones(8, Game.Color.WHITE, 3);
+        setStones(6, Game.Color.WHITE, 5);
+    }
+
+    /**
+     * Removes all stones from the board.
+     */
+    public void clear() {
+        Arrays.fill(counts, (byte) 0);
+        Arrays.fill(stats, 0);
+        key = 0;
+    }
+
+    /**
+     * Places a number of stones of one colour on a pip, replacing whatever was there.
+     *
+     * @param pip pip number
+     * @param color colour of the stones
+     * @param n number of stones
+     */
+    public void setStones(int pip, Game.Color color, int n) {
+        set(pip + OFFSET, color == Game.Color.WHITE ? -n : n);
+    }
+
+    /**
+     * Sets the signed number of stones in a slot and updates the key. (Should be called internally)
+     *
+     * @param slot index of the pip (pip number + OFFSET)
+     * @param count signed number of stones
+     */
+    private void set(int slot, int count) {
+        key ^= Zobrist.getPipKey(slot, counts[slot]) ^ Zobrist.getPipKey(slot, count);
+        count(slot, counts[slot], -1);
+        count(slot, count, 1);
+        counts[slot] = (byte) count;
+    }
+
+    /**
+     * Adds the stones in a slot to the statistics, or removes them. (Should be called internally)
+     *
+     * @param slot index of the pip (pip number + OFFSET)
+     * @param count signed number of stones
+     * @param sign 1 to add, -1 to remove
+     */
+    private void count(int slot, int count, int sign) {
+        if (count == 0)
+            return;
+
+        int player = count > 0 ? 0 : 1, n = count > 0 ? count : -count, distance = DISTANCE[player * SIZE + slot];
+
+        stats[PIPS + player] += sign * n * distance;
+        if (OUTSIDE[player * SIZE + slot])
+            stats[OUTSIDE_HOME_BOARD + player] += sign * n;
+
+        if (distance == 0)
+            stats[BORNE_OFF + player] += sign * n;
+        else if (distance == 25)
+            stats[BAR + player] += sign * n;
+        else if (n == 1)
+            stats[BLOTS + player] += sign;
+    }
+
+    /**
+     * Gets the Zobrist key of the stones on the board (see Zobrist).
+     *
+     * @return the key
+     */
+    public long getKey() {
+        return key;
+    }
+
+    /**
+     * Gets the Zobrist key of this position with the side to move and the dice left to play.
+     *
+     * @param color colour of the player to move
+     * @param dice values of the dice left to play
+     * @return the key
+     */
+    public long getKey(Game.Color color, int[] dice) {
+        return key ^ Zobrist.getSideKey(color) ^ Zobrist.getDiceKey(dice);
+    }
+
+    /**
+     * Gets the number of stones on a pip.
+     *
+     * @param pip pip number
+     * @return number of stones
+     */
+    public int getStoneCount(int pip) {
+        int c = counts[pip + OFFSET];
+        return c < 0 ? -c : c;
+    }
+
+    /**
+     * Gets the colour of the stones on a pip.
+     *
+     * @param pip pip number
+     * @return colour of stones, or Game.Color.NONE if no stones
+     */
+    public Game.Color getColor(int pip) {
+        int c = counts[pip + OFFSET];
+        return c > 0 ? Game.Color.BLACK : c < 0 ? Game.Color.WHITE : Game.Color.NONE;
+    }
+
+    /**
+     * Gets the number of stones a player has on a pip.
+     *
+     * @param pip pip number
+     * @param color colour of player
+     * @return number of the player's stones (0 if the pip is empty or held by the opponent)
+     */
+    public int getStoneCount(int pip, Game.Color color) {
+        int c = counts[pip + OFFSET] * (color == Game.Color.WHITE ? -1 : 1);
+        return c > 0 ? c : 0;
+    }
+
+    /**
+     * Gets the pip count of a player: the total number of pips the player's stones must travel to get home.
+     *
+     * @param color colour of player
+     * @return the pip count
+     */
+    public int getPipCount(Game.Color color) {
+        return stats[PIPS + (color == Game.Color.WHITE ? 1 : 0)];
+    }
+
+    /**
+     * Gets the number of stones a player has borne off (moved home).
+     *
+     * @param color colour of player
+     * @return number of stones home
+     */
+    public int getBorneOffCount(Game.Color color) {
+        return stats[BORNE_OFF + (color == Game.Color.WHITE ? 1 : 0)];
+    }
+
+    /**
+     * Gets the number of stones a player has on the bar.
+     *
+     * @param color colour of player
+     * @return number of stones on the bar
+     */
+    public int getBarCount(Game.Color color) {
+        return stats[BAR + (color == Game.Color.WHITE ? 1 : 0)];
+    }
+
+    /**
+     * Gets the number of blots (pips with a single stone) a player has on the board.
+     *
+     * @param color colour of player
+     * @return number of blots
+     */
+    public int getBlotCount(Game.Color color) {
+        return stats[BLOTS + (color == Game.Color.WHITE ? 1 : 0)];
+    }
+
+    /**
+     * Gets the number of stones a player has outside their home board (including on the bar). The player may bear
+     * off when this is 0.
+     *
+     * @param color colour of player
+     * @return number of stones outside the home board
+     */
+    public int getOutsideHomeBoardCount(Game.Color color) {
+        return stats[OUTSIDE_HOME_BOARD + (color == Game.Color.WHITE ? 1 : 0)];
+    }
+
+    /**
+     * Checks if a pip is a possible starting point for a move by the specified player.
+     *
+     * @param pip pip number
+     * @param color colour of player
+     * @return whether a move is possible (a move is possible if there are stones of the player's colour on the pip)
+     */
+    public boolean isPossibleStart(int pip, Game.Color color) {
+        return getStoneCount(pip, color) > 0;
+    }
+
+    /**
+     * Checks if a pip is a possible ending point for a move by the specified player.
+     *
+     * @param pip pip number
+     * @param color colour of player
+     * @return whether a move is possible (a move is possible if there are stones of the player's colour, or at most one stone of the opposing colour)
+     */
+    public boolean isPossibleEnd(int pip, Game.Color color) {
+        int c = counts[pip + OFFSET] * (color == Game.Color.WHITE ? -1 : 1);
+        return c >= -1;
+    }
+
+    /**
+     * Moves one stone from one pip to another. A lone opposing stone on the ending pip is knocked to its bar.
+     * NOTE: this method does not check that the move is legal.
+     *
+     * @param start starting pip
+     * @param end ending pip
+     * @return whether a stone was knocked to the bar
+     */
+    public boolean moveStone(int start, int end) {
+        int from = start + OFFSET, to = end + OFFSET;
+        int sign = counts[from] > 0 ? 1 : -1;
+        boolean hit = counts[to] * sign < 0;
+
+        // Knock stone to bar if the end pip holds a stone of the other colour
+        if (hit) {
+            int bar = (sign > 0 ? WHITE_BAR : BLACK_BAR) + OFFSET;
+            set(to, 0);
+            set(bar, counts[bar] - sign);
+        }
+
+        // Move the stone
+        set(from, counts[from] - sign);
+        set(to, counts[to] + sign);
+
+        return hit;
+    }
+
+    /**
+     * Takes back a move of one stone made by moveStone().
+     *
+     * @param start starting pip of the move
+     * @param end ending pip of the move
+     * @param hit whether the move knocked a stone to the bar (returned by moveStone())
+     */
+    public void unmoveStone(int start, int end, boolean hit) {
+        int from = start + OFFSET, to = end + OFFSET;
+        int sign = counts[to] > 0 ? 1 : -1;
+
+        set(to, counts[to] - sign);
+        set(from, counts[from] + sign);
+
+        // Put back the stone knocked to the bar
+        if (hit) {
+            int bar = (sign > 0 ? WHITE_BAR : BLACK_BAR) + OFFSET;
+            set(bar, counts[bar] + sign);
+            set(to, -sign);
+        }
+    }
+
+    /**
+     * Moves a stone die by die from its starting pip to its ending pip.
+     * NOTE: this method does not remove the dice associated with the move from any lists of dice.
+     *
+     * The returned undo record holds every step of the move (the pips moved between and whether a lone stone was
+     * knocked to the bar), so unmakeMove() can restore the position exactly without copying it.
+     *
+     * @param move the move to execute
+     * @return the undo record (0 if there is no move)
+     */
+    public long executeMove(Move move) {
+        // Do nothing if there is no move
+        if (move == null)
+            return 0;
+
+        // Execute move die by die
+        int direction = move.getEndPip() - move.getStartPip() > 0 ? 1 : -1;
+
+        // Store some values
+        int start = move.getStartPip(), end, steps = 0;
+        int bar = direction == 1 ? BLACK_BAR : WHITE_BAR;
+        int home = direction == 1 ? BLACK_HOME : WHITE_HOME;
+        long undo = 0;
+
+        for (int i = 0; i < move.getDiceCount(); i++) {
+            // Update end position of move
+            end = start + move.getDie(i) * direction;
+            if (start == bar) end += direction; // Adjust move distance if starting from the bar
+            if (end * direction > home * direction) end = home; // Check for overshooting
+
+            // Move the stone (knocking a lone stone of the other colour to its bar)
+            boolean hit = moveStone(start, end);
+
+            // Record the step
+            undo |= (long) ((start + OFFSET) | (end + OFFSET) << UNDO_PIP_BITS | (hit ? 1 : 0) << 2 * UNDO_PIP_BITS)
+                    << (UNDO_COUNT_BITS + UNDO_STEP_BITS * steps++);
+
+            // Prepare next iteration
+            start = end;
+        }
+
+        return undo | steps;
+    }
+
+    /**
+     * Checks whether a number is a well-formed undo record (see executeMove()), such as one read from a file.
+     *
+     * @param undo the undo record
+     * @return true if it holds one to four steps between slots of the board
+     */
+    public static boolean isValidUndo(long undo) {
+        int steps = (int) (undo & ((1 << UNDO_COUNT_BITS) - 1));
+        if (steps < 1 || steps > 4 || undo >>> (UNDO_COUNT_BITS + UNDO_STEP_BITS * steps) != 0)
+            return false;
+
+        for (int i = 0; i < steps; i++) {
+            int step = (int) (undo >>> (UNDO_COUNT_BITS + UNDO_STEP_BITS * i));
+            if ((step & UNDO_PIP_MASK) >= SIZE || (step >>> UNDO_PIP_BITS & UNDO_PIP_MASK) >= SIZE)
+                return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * Takes back a move made by executeMove(), restoring the stones, statistics and key exactly. Moves made after it
+     * must be taken back first.
+     *
+     * @param undo the undo record returned by executeMove()
+     */
+    public void unmakeMove(long undo) {
+        int steps = (int) (undo & ((1 << UNDO_COUNT_BITS) - 1));
+
+        // Undo the steps in reverse
+        for (int i = steps - 1; i >= 0; i--) {
+            int step = (int) (undo >>> (UNDO_COUNT_BITS + UNDO_STEP_BITS * i));
+            int from = step & UNDO_PIP_MASK, to = (step >>> UNDO_PIP_BITS) & UNDO_PIP_MASK;
+
+            unmoveStone(from - OFFSET, to - OFFSET, (step >>> 2 * UNDO_PIP_BITS & 1) != 0);
+        }
+    }
+
+    /**
+     * Checks for the winner of the game.
+     *
+     * @return color corresponding to the winner of the game (Game.Color.NONE if no winner yet)
+     */
+    public Game.Color checkWinner() {
+        if (stats[BORNE_OFF] == STONES)
+            return Game.Color.BLACK;
+        if (stats[BORNE_OFF + 1] == STONES)
+            return Game.Color.WHITE;
+        return Game.Color.NONE;
+    }
+
+    /**
+     * Gets the number of points won by the winner of the game: 1 for a single game, 2 for a gammon (the loser has no
+     * stones home), 3 for a backgammon (the loser also has stones on the bar or in the winner's home board).
+     *
+     * @return points won (0 if no winner yet)
+     */
+    public int getWinPoints() {
+        Game.Color winner = checkWinner();
+        if (winner == Game.Color.NONE)
+            return 0;
+
+        Game.Color loser = (winner == Game.Color.BLACK) ? Game.Color.WHITE : Game.Color.BLACK;
+        if (getBorneOffCount(loser) > 0)
+            return 1;
+
+        // Winner's home board and the loser's bar
+        int first = (winner == Game.Color.BLACK) ? 19 : 1;
+        if (getBarCount(loser) > 0)
+            return 3;
+        for (int p = first; p < first + 6; p++)
+            if (isPossibleStart(p, loser))
+                return 3;
+
+        return 2;
+    }
+
+    /**
+     * Checks for equivalency between this position and another.
+     *
+     * @param o the other object
+     * @return true if both positions have the same stones on the same pips
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+
+        return Arrays.equals(counts, ((Position) o).counts);
+    }
+
+    /**
+     * Gets the hash code of this position (taken from the key, so it is not recalculated).
+     *
+     * @return the hash code
+     */
+    @Override
+    public int hashCode() {
+        return (int) (key ^ (key >>> 32));
+    }
+}
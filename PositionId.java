@@ -0,0 +1,346 @@
+/**
+ * Class which encodes positions and games as short text keys, in the formats of GNU Backgammon: the 14-character
+ * position ID (the stones) and the 12-character match ID (whose turn it is, the dice and the state of the game).
+ *
+ * Position ID: for each player, the one on roll first, and for each of their points from their own 1-point to their
+ * 24-point and then their bar, as many 1 bits as stones followed by a 0 bit (80 bits in all; borne off stones are
+ * left out). The bits are packed into 10 bytes, least significant bit first, and written in Base64 without padding.
+ *
+ * Match ID: the 66 bit fields of GNU Backgammon packed and written the same way. There is no cube or match, so the
+ * cube is centred at 1, the match length (money game) and scores are 0. Black is player 0 and white player 1. The
+ * dice are those left to play: a double with three or fewer left to play, or a single die left, cannot be told from a
+ * whole roll, so IDs should be taken before the first move of a turn (as GNU Backgammon does). A single die is
+ * written as the first die with the second 0.
+ *
+ * Keys are built in a pair of longs and a small char array, so encoding makes only the String. decodePosition() fills
+ * a given position and allocates nothing; decode() makes a new position, dice and game for its result.
+ */
+public class PositionId {
+
+    public static final int POSITION_ID_LENGTH = 14, MATCH_ID_LENGTH = 12;
+
+    private static final char[] BASE64 = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/".toCharArray();
+
+    // Value of each Base64 character (-1 if not one)
+    private static final byte[] BASE64_VALUES = new byte[128];
+
+    static {
+        java.util.Arrays.fill(BASE64_VALUES, (byte) -1);
+        for (int i = 0; i < BASE64.length; i++)
+            BASE64_VALUES[BASE64[i]] = (byte) i;
+    }
+
+    // Points of each player in the position ID (24 points and the bar)
+    private static final int POINTS = 25;
+
+    // Offsets and widths of the match ID fields used here
+    private static final int CUBE_OWNER = 4, DICE_OWNER = 6, GAME_STATE = 8, TURN = 11, DIE_1 = 15, DIE_2 = 18;
+    private static final int CENTRED = 3, PLAYING = 1, GAME_OVER = 2;
+
+    /**
+     * Gets the pip of a player's point, numbered from their own point of view.
+     *
+     * @param color colour of the player
+     * @param point the point (1-24, or 25 for the bar)
+     * @return the pip number
+     */
+    private static int getPip(Game.Color color, int point) {
+        if (point == POINTS)
+            return color == Game.Color.BLACK ? Position.BLACK_BAR : Position.WHITE_BAR;
+
+        return color == Game.Color.BLACK ? Position.BLACK_HOME - point : point;
+    }
+
+    /**
+     * Encodes the stones of a position as a position ID.
+     *
+     * @param position the position
+     * @param onRoll colour of the player on roll
+     * @return the position ID (14 characters)
+     */
+    public static String encodePosition(Position position, Game.Color onRoll) {
+        Game.Color other = (onRoll == Game.Color.BLACK) ? Game.Color.WHITE : Game.Color.BLACK;
+        long low = 0, high = 0;
+        int bit = 0;
+
+        for (int player = 0; player < 2; player++) {
+            Game.Color color = (player == 0) ? onRoll : other;
+
+            for (int point = 1; point <= POINTS; point++) {
+                int count = position.getStoneCount(getPip(color, point), color);
+
+                // The ones of a point never reach past bit 79 in a valid position
+                for (int i = 0; i < count; i++, bit++) {
+                    if (bit < 64)
+                        low |= 1L << bit;
+                    else
+                        high |= 1L << (bit - 64);
+                }
+                bit++;
+            }
+        }
+
+        return encode(low, high, 10, POSITION_ID_LENGTH);
+    }
+
+    /**
+     * Decodes a position ID into a position. Stones left out of the ID are borne off.
+     *
+     * @param id the position ID
+     * @param onRoll colour of the player on roll
+     * @param out the position to set
+     * @throws IllegalArgumentException if the ID is not a valid position ID
+     */
+    public static void decodePosition(CharSequence id, Game.Color onRoll, Position out) {
+        if (id.length() != POSITION_ID_LENGTH)
+            throw new IllegalArgumentException("Position ID must have " + POSITION_ID_LENGTH + " characters: " + id);
+
+        long low = decodeLow(id), high = decodeHigh(id, 10);
+        Game.Color other = (onRoll == Game.Color.BLACK) ? Game.Color.WHITE : Game.Color.BLACK;
+        int bit = 0;
+
+        out.clear();
+
+        for (int player = 0; player < 2; player++) {
+            Game.Color color = (player == 0) ? onRoll : other;
+            int stones = 0;
+
+            for (int point = 1; point <= POINTS; point++) {
+                int count = 0;
+                while (bit < 80 && ((bit < 64 ? low >>> bit : high >>> (bit - 64)) & 1) != 0) {
+                    count++;
+                    bit++;
+                }
+                if (bit++ >= 80 || (stones += count) > Position.STONES)
+                    throw new IllegalArgumentException("Not a valid position ID: " + id);
+
+                // Only occupied pips are set, as setting a pip replaces the other player's stones
+                if (count > 0) {
+                    if (out.getStoneCount(getPip(color, point)) > 0)
+                        throw new IllegalArgumentException("Both players on one point: " + id);
+                    out.setStones(getPip(color, point), color, count);
+                }
+            }
+
+            out.setStones(color == Game.Color.BLACK ? Position.BLACK_HOME : Position.WHITE_HOME, color,
+                    Position.STONES - stones);
+        }
+    }
+
+    /**
+     * Encodes the turn and dice of a game as a match ID.
+     *
+     * @param turn colour of the player whose turn it is
+     * @param dice values of the dice left to play (empty if yet to roll)
+     * @param gameOver whether the game is over
+     * @return the match ID (12 characters)
+     */
+    public static String encodeMatch(Game.Color turn, int[] dice, boolean gameOver) {
+        long player = (turn == Game.Color.WHITE) ? 1 : 0;
+
+        long bits = (long) CENTRED << CUBE_OWNER | player << DICE_OWNER
+                | (long) (gameOver ? GAME_OVER : PLAYING) << GAME_STATE | player << TURN;
+        if (dice.length > 0)
+            bits |= (long) dice[0] << DIE_1 | (long) (dice.length > 1 ? dice[1] : 0) << DIE_2;
+
+        return encode(bits, 0, 9, MATCH_ID_LENGTH);
+    }
+
+    /**
+     * Decodes whose turn it is from a match ID.
+     *
+     * @param id the match ID
+     * @return colour of the player whose turn it is
+     * @throws IllegalArgumentException if the ID is not a valid match ID
+     */
+    public static Game.Color decodeTurn(CharSequence id) {
+        return ((decodeMatch(id) >>> TURN) & 1) == 0 ? Game.Color.BLACK : Game.Color.WHITE;
+    }
+
+    /**
+     * Decodes the dice left to play from a match ID.
+     *
+     * @param id the match ID
+     * @return values of the dice (four for a double, empty if yet to roll)
+     * @throws IllegalArgumentException if the ID is not a valid match ID
+     */
+    public static int[] decodeDice(CharSequence id) {
+        long bits = decodeMatch(id);
+        int a = (int) (bits >>> DIE_1) & 7, b = (int) (bits >>> DIE_2) & 7;
+
+        if (a > 6 || b > 6 || (a == 0 && b != 0))
+            throw new IllegalArgumentException("Not a valid match ID: " + id);
+
+        if (a == 0)
+            return new int[0];
+        if (b == 0)
+            return new int[]{ a };
+        return (a == b) ? new int[]{ a, a, a, a } : new int[]{ a, b };
+    }
+
+    /**
+     * Reads the bits of a match ID.
+     *
+     * @param id the match ID
+     * @return the low 64 bits
+     * @throws IllegalArgumentException if the ID is not a valid match ID
+     */
+    private static long decodeMatch(CharSequence id) {
+        if (id.length() != MATCH_ID_LENGTH)
+            throw new IllegalArgumentException("Match ID must have " + MATCH_ID_LENGTH + " characters: " + id);
+
+        decodeHigh(id, 9);
+        return decodeLow(id);
+    }
+
+    /**
+     * Encodes a game as "position ID:match ID".
+     *
+     * @param game the game
+     * @return the ID
+     */
+    public static String encode(Game game) {
+        return encodePosition(game.getPosition(), game.getTurn()) + ":"
+                + encodeMatch(game.getTurn(), game.getDice().getValues(), game.isGameOver());
+    }
+
+    /**
+     * Decodes a game from "position ID:match ID", waiting for the player whose turn it is to roll, or to move if the
+     * dice have been rolled. The game has no history.
+     *
+     * @param id the ID
+     * @return the game
+     * @throws IllegalArgumentException if the ID is not valid
+     */
+    public static Game decode(CharSequence id) {
+        int colon = -1;
+        for (int i = 0; i < id.length() && colon < 0; i++)
+            if (id.charAt(i) == ':')
+                colon = i;
+        if (colon < 0)
+            throw new IllegalArgumentException("ID must be \"position ID:match ID\": " + id);
+
+        CharSequence matchId = id.subSequence(colon + 1, id.length());
+        Game.Color turn = decodeTurn(matchId);
+        int[] dice = decodeDice(matchId);
+
+        Position position = new Position();
+        decodePosition(id.subSequence(0, colon), turn, position);
+
+        Game.Event event;
+        if (turn == Game.Color.BLACK)
+            event = dice.length > 0 ? Game.Event.BLACK_MOVE : Game.Event.BLACK_DICE_ROLL;
+        else
+            event = dice.length > 0 ? Game.Event.WHITE_MOVE : Game.Event.WHITE_DICE_ROLL;
+
+        return new Game(position, dice, Game.LOOP.indexOf(event), false, new java.util.ArrayList<>(),
+                new java.util.ArrayList<>());
+    }
+
+    /**
+     * Writes bits in Base64: the bytes (least significant first), three bytes to four characters, without padding.
+     *
+     * @param low bits 0-63
+     * @param high bits 64 and up
+     * @param bytes number of bytes
+     * @param length number of characters
+     * @return the characters
+     */
+    private static String encode(long low, long high, int bytes, int length) {
+        char[] out = new char[length];
+        int c = 0;
+
+        for (int i = 0; i < bytes; i += 3) {
+            int group = getByte(low, high, i) << 16;
+            if (i + 1 < bytes)
+                group |= getByte(low, high, i + 1) << 8;
+            if (i + 2 < bytes)
+                group |= getByte(low, high, i + 2);
+
+            for (int j = 0; j < 4 && c < length; j++)
+                out[c++] = BASE64[(group >>> (18 - 6 * j)) & 63];
+        }
+
+        return new String(out);
+    }
+
+    /**
+     * Gets one byte of bits held in two longs.
+     *
+     * @param low bits 0-63
+     * @param high bits 64 and up
+     * @param i index of the byte
+     * @return the byte (0-255)
+     */
+    private static int getByte(long low, long high, int i) {
+        return (int) ((i < 8 ? low >>> (8 * i) : high >>> (8 * (i - 8))) & 0xFF);
+    }
+
+    /**
+     * Reads the first 64 bits of Base64 characters written by encode().
+     *
+     * @param id the characters
+     * @return bits 0-63
+     * @throws IllegalArgumentException if a character is not Base64
+     */
+    private static long decodeLow(CharSequence id) {
+        long low = 0;
+
+        for (int i = 0; i < 8; i++)
+            low |= (long) decodeByte(id, i) << (8 * i);
+
+        return low;
+    }
+
+    /**
+     * Reads the bits after the first 64 of Base64 characters written by encode(), checking every character.
+     *
+     * @param id the characters
+     * @param bytes number of bytes encoded
+     * @return bits 64 and up
+     * @throws IllegalArgumentException if a character is not Base64
+     */
+    private static long decodeHigh(CharSequence id, int bytes) {
+        long high = 0;
+
+        for (int i = 8; i < bytes; i++)
+            high |= (long) decodeByte(id, i) << (8 * (i - 8));
+
+        // Characters holding only padding bits
+        for (int i = (8 * bytes + 5) / 6; i < id.length(); i++)
+            getValue(id, i);
+
+        return high;
+    }
+
+    /**
+     * Reads one byte of Base64 characters written by encode(), from the two characters it spans.
+     *
+     * @param id the characters
+     * @param i index of the byte
+     * @return the byte (0-255)
+     * @throws IllegalArgumentException if a character is not Base64
+     */
+    private static int decodeByte(CharSequence id, int i) {
+        int c = 8 * i / 6, offset = 8 * i % 6;
+        int bits = getValue(id, c) << 6 | (c + 1 < id.length() ? getValue(id, c + 1) : 0);
+
+        return (bits >>> (4 - offset)) & 0xFF;
+    }
+
+    /**
+     * Gets the value of a Base64 character.
+     *
+     * @param id the characters
+     * @param i index of the character
+     * @return the value (0-63)
+     * @throws IllegalArgumentException if the character is not Base64
+     */
+    private static int getValue(CharSequence id, int i) {
+        char c = id.charAt(i);
+        if (c >= 128 || BASE64_VALUES[c] < 0)
+            throw new IllegalArgumentException("Not a Base64 character '" + c + "': " + id);
+
+        return BASE64_VALUES[c];
+    }
+}
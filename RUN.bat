@@ -1,5 +1,5 @@
 cd .
 javac -d out GameFrame.java
 pause
-java -classpath out GameFrame
+java -classpath out;. GameFrame
 pause
\ No newline at end of file
@@ -0,0 +1,6 @@
+cd .
+javac -d out GameFrame.java
+javac --add-modules jdk.incubator.vector -sourcepath . -d out vector/VectorKernel.java
+pause
+java --add-modules jdk.incubator.vector -classpath out;. GameFrame
+pause
\ No newline at end of file
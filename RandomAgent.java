@@ -0,0 +1,31 @@
+import java.util.ArrayList;
+import java.util.Random;
+
+/**
+ * Class representing an agent which chooses plays at random.
+ */
+public class RandomAgent implements Agent {
+
+    private Random random;
+
+    /**
+     * Constructs a new random agent.
+     *
+     * @param random random number generator to choose with
+     */
+    public RandomAgent(Random random) {
+        this.random = random;
+    }
+
+    /**
+     * Chooses one of the legal plays at random.
+     *
+     * @param game the game
+     * @param plays the legal plays
+     * @return the chosen play
+     */
+    @Override
+    public Play choosePlay(Game game, ArrayList<Play> plays) {
+        return plays.get(random.nextInt(plays.size()));
+    }
+}
@@ -0,0 +1,71 @@
+import java.util.SplittableRandom;
+
+/**
+ * Class which rolls dice from a SplittableRandom stream.
+ *
+ * A source made with a seed rolls the same dice every run. A source is not thread-safe, so each thread (or game) should
+ * have its own, made with split(). The shared source, used when no other is given, keeps one stream per thread, so
+ * threads never contend for one generator.
+ */
+public class RandomDiceSource implements DiceSource {
+
+    /*
+     * Variable Dictionary
+     *
+     * STREAMS - stream of the shared source on each thread
+     * SHARED  - the shared source
+     *
+     * random  - stream of this source
+     */
+    private static final ThreadLocal<SplittableRandom> STREAMS = ThreadLocal.withInitial(SplittableRandom::new);
+    private static final DiceSource SHARED = () -> STREAMS.get().nextInt(6) + 1;
+
+    private SplittableRandom random;
+
+    /**
+     * Constructs a new source which rolls the same dice every time for the same seed.
+     *
+     * @param seed the seed
+     */
+    public RandomDiceSource(long seed) {
+        this(new SplittableRandom(seed));
+    }
+
+    /**
+     * Constructs a new source rolling from the given stream.
+     *
+     * @param random the stream
+     */
+    private RandomDiceSource(SplittableRandom random) {
+        this.random = random;
+    }
+
+    /**
+     * Gets the source shared by all games without a source of their own. Safe to use from any thread.
+     *
+     * @return the shared source
+     */
+    public static DiceSource getShared() {
+        return SHARED;
+    }
+
+    /**
+     * Makes a new source whose dice are independent of this one's, for another thread.
+     * Splitting the same seeded source in the same order gives the same sources every run.
+     *
+     * @return the new source
+     */
+    public RandomDiceSource split() {
+        return new RandomDiceSource(random.split());
+    }
+
+    /**
+     * Rolls one die.
+     *
+     * @return value of the die (1-6)
+     */
+    @Override
+    public int nextDie() {
+        return random.nextInt(6) + 1;
+    }
+}
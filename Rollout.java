@@ -0,0 +1,412 @@
+import java.util.ArrayList;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Class which estimates the outcome of a position by playing it out many times with a fast policy (a rollout).
+ *
+ * Trials are played in pairs: the second trial of a pair uses the mirrored dice of the first (each die d becomes 7 - d),
+ * and the first random roll of each pair cycles through all 36 rolls in turn. Both reduce the variance of the results,
+ * so fewer trials reach the same confidence. Pairs are spread across worker threads, and each pair's dice come from its
+ * own seed, so the results do not depend on the number of threads.
+ */
+public class Rollout {
+
+    // Number of pairs between reports to the listener (one cycle of the first roll)
+    private static final int REPORT_INTERVAL = 36;
+
+    /**
+     * Outcomes measured by a rollout, for the player to move at the start.
+     */
+    public enum Statistic {
+        WIN, WIN_GAMMON, WIN_BACKGAMMON, LOSE_GAMMON, LOSE_BACKGAMMON, EQUITY
+    }
+
+    /*
+     * Variable Dictionary
+     *
+     * start       - starting position
+     * turn        - colour of the player to move at the start
+     * dice        - dice the player to move has left to play (empty if they are yet to roll)
+     * pairs       - maximum number of pairs of trials
+     * threads     - number of worker threads
+     * seed        - seed from which the dice of each pair are made
+     * policy      - evaluation with which each player chooses the play with the best resulting position
+     * targetError - standard error of the equity at which to stop early (0 to play all trials)
+     * listener    - receives copies of the results as they come in (null for none)
+     *
+     * result      - results so far
+     * cancelled   - whether the rollout has been cancelled
+     * converged   - whether the target error has been reached
+     */
+    private Position start;
+    private Game.Color turn;
+    private int[] dice;
+    private int pairs, threads;
+    private long seed;
+    private Evaluator policy;
+    private double targetError;
+    private Consumer<Result> listener;
+
+    private final Result result = new Result();
+    private volatile boolean cancelled, converged;
+
+    /**
+     * Constructs a new rollout.
+     *
+     * @param start starting position
+     * @param turn colour of the player to move
+     * @param dice dice the player to move has left to play (empty if they are yet to roll)
+     * @param trials maximum number of trials (rounded up to a whole number of pairs)
+     * @param threads number of worker threads
+     * @param seed seed of the dice
+     */
+    public Rollout(Position start, Game.Color turn, int[] dice, int trials, int threads, long seed) {
+        this.start = new Position(start);
+        this.turn = turn;
+        this.dice = dice.clone();
+        this.pairs = (trials + 1) / 2;
+        this.threads = threads;
+        this.seed = seed;
+        this.policy = BearoffEvaluator.create(NeuralEvaluator.loadDefault(new HeuristicEvaluator()));
+    }
+
+    /**
+     * Sets the evaluation with which the players choose their plays.
+     *
+     * @param policy the evaluation
+     */
+    public void setPolicy(Evaluator policy) {
+        this.policy = policy;
+    }
+
+    /**
+     * Sets the standard error of the equity at which to stop early.
+     *
+     * @param targetError the standard error (0 to play all trials)
+     */
+    public void setTargetError(double targetError) {
+        this.targetError = targetError;
+    }
+
+    /**
+     * Sets the listener which receives copies of the results as they come in. It is called from the worker threads.
+     *
+     * @param listener the listener
+     */
+    public void setListener(Consumer<Result> listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Stops the rollout after the trials in progress. May be called from any thread.
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    /**
+     * Checks whether the rollout has been cancelled.
+     *
+     * @return true if cancelled
+     */
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Checks whether the rollout stopped early because the target error was reached (see setTargetError()).
+     *
+     * @return true if the target error was reached
+     */
+    public boolean isConverged() {
+        return converged;
+    }
+
+    /**
+     * Plays all trials (or until cancelled or the target error is reached) and waits for them to finish.
+     *
+     * @return the results
+     * @throws Exception if a worker fails
+     */
+    public Result run() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        AtomicInteger next = new AtomicInteger();
+        ArrayList<Future<?>> futures = new ArrayList<>();
+        long startTime = System.nanoTime();
+
+        for (int i = 0; i < threads; i++)
+            futures.add(executor.submit(() -> runWorker(next, startTime)));
+
+        try {
+            for (Future<?> future : futures)
+                future.get();
+        } finally {
+            executor.shutdown();
+        }
+
+        Result copy;
+        synchronized (result) {
+            result.nanos = System.nanoTime() - startTime;
+            copy = result.copy();
+        }
+
+        if (listener != null)
+            listener.accept(copy);
+
+        return copy;
+    }
+
+    /**
+     * Plays pairs of trials on one worker thread until all are claimed, or the rollout stops.
+     *
+     * @param next counter of pairs claimed by all workers
+     * @param startTime time at which the rollout started
+     */
+    private void runWorker(AtomicInteger next, long startTime) {
+        int pair;
+
+        while (!cancelled && !converged && (pair = next.getAndIncrement()) < pairs) {
+            int stratum = pair % 36;
+            int first = playTrial(new SplittableRandom(seed + 0x9E3779B97F4A7C15L * pair), stratum, false);
+            int second = playTrial(new SplittableRandom(seed + 0x9E3779B97F4A7C15L * pair), stratum, true);
+
+            Result copy = null;
+            synchronized (result) {
+                result.addPair(first, second);
+                result.nanos = System.nanoTime() - startTime;
+
+                if (targetError > 0 && result.pairs >= REPORT_INTERVAL && result.getStandardError(Statistic.EQUITY) <= targetError)
+                    converged = true;
+
+                if (listener != null && result.pairs % REPORT_INTERVAL == 0)
+                    copy = result.copy();
+            }
+
+            if (copy != null)
+                listener.accept(copy);
+        }
+    }
+
+    /**
+     * Plays one trial to the end of the game.
+     *
+     * @param random random number generator of the pair
+     * @param stratum index (0 to 35) of the first random roll
+     * @param mirror whether to mirror the dice
+     * @return points won by the player to move at the start (negative if lost)
+     */
+    private int playTrial(SplittableRandom random, int stratum, boolean mirror) {
+        Position position = start;
+        Game.Color color = turn;
+        int[] roll = (dice.length > 0) ? dice : null;
+        boolean stratified = false;
+
+        while (position.checkWinner() == Game.Color.NONE) {
+            if (roll == null) {
+                int a, b;
+                if (!stratified) {
+                    a = stratum / 6 + 1;
+                    b = stratum % 6 + 1;
+                    stratified = true;
+                } else {
+                    a = random.nextInt(6) + 1;
+                    b = random.nextInt(6) + 1;
+                }
+
+                if (mirror) {
+                    a = 7 - a;
+                    b = 7 - b;
+                }
+                roll = Rolls.getDice(Rolls.getIndex(a, b));
+            }
+
+            position = choosePosition(position, color, roll);
+            color = (color == Game.Color.BLACK) ? Game.Color.WHITE : Game.Color.BLACK;
+            roll = null;
+        }
+
+        return (position.checkWinner() == turn ? 1 : -1) * position.getWinPoints();
+    }
+
+    /**
+     * Chooses the play with the best resulting position by the policy.
+     *
+     * @param position position to move from
+     * @param color colour of the player to move
+     * @param roll values of the dice
+     * @return position after the chosen play
+     */
+    private Position choosePosition(Position position, Game.Color color, int[] roll) {
+        Position best = null;
+        double bestValue = 0;
+
+        for (Play play : MoveGenerator.generatePlays(position, color, roll)) {
+            double value = policy.evaluate(play.getPosition(), color);
+
+            if (best == null || value > bestValue) {
+                best = play.getPosition();
+                bestValue = value;
+            }
+        }
+
+        return best;
+    }
+
+    /**
+     * Class containing the results of a rollout, for the player to move at the start.
+     *
+     * Each pair of trials (mirrored dice) counts as one sample, so the standard errors include the effect of mirroring.
+     */
+    public static class Result {
+
+        /*
+         * Variable Dictionary
+         *
+         * pairs - number of pairs of trials played
+         * sums  - sum over pairs of the mean of each statistic, indexed by Statistic ordinal
+         * sumSq - sum over pairs of the squared mean of each statistic, indexed by Statistic ordinal
+         * nanos - time taken so far
+         */
+        private long pairs, nanos;
+        private double[] sums = new double[Statistic.values().length], sumSq = new double[Statistic.values().length];
+
+        /**
+         * Adds a pair of trials.
+         *
+         * @param first points won in the first trial (negative if lost)
+         * @param second points won in the mirrored trial (negative if lost)
+         */
+        private void addPair(int first, int second) {
+            pairs++;
+            for (Statistic statistic : Statistic.values()) {
+                double mean = (getValue(statistic, first) + getValue(statistic, second)) / 2;
+                sums[statistic.ordinal()] += mean;
+                sumSq[statistic.ordinal()] += mean * mean;
+            }
+        }
+
+        /**
+         * Gets the value of a statistic in one trial.
+         *
+         * @param statistic the statistic
+         * @param points points won in the trial (negative if lost)
+         * @return the value
+         */
+        private static double getValue(Statistic statistic, int points) {
+            switch (statistic) {
+                case WIN:
+                    return points > 0 ? 1 : 0;
+                case WIN_GAMMON:
+                    return points >= 2 ? 1 : 0;
+                case WIN_BACKGAMMON:
+                    return points >= 3 ? 1 : 0;
+                case LOSE_GAMMON:
+                    return points <= -2 ? 1 : 0;
+                case LOSE_BACKGAMMON:
+                    return points <= -3 ? 1 : 0;
+                default:
+                    return points;
+            }
+        }
+
+        /**
+         * Makes a copy of these results.
+         *
+         * @return the copy
+         */
+        private Result copy() {
+            Result copy = new Result();
+            copy.pairs = pairs;
+            copy.nanos = nanos;
+            copy.sums = sums.clone();
+            copy.sumSq = sumSq.clone();
+            return copy;
+        }
+
+        /**
+         * Gets the number of trials played.
+         *
+         * @return number of trials
+         */
+        public long getTrials() {
+            return 2 * pairs;
+        }
+
+        /**
+         * Gets the number of trials played per second.
+         *
+         * @return trials per second
+         */
+        public double getTrialsPerSecond() {
+            return nanos == 0 ? 0 : getTrials() / (nanos / 1e9);
+        }
+
+        /**
+         * Gets the estimate of a statistic (a probability, or the equity in points per game).
+         *
+         * @param statistic the statistic
+         * @return the mean over all trials
+         */
+        public double getMean(Statistic statistic) {
+            return pairs == 0 ? 0 : sums[statistic.ordinal()] / pairs;
+        }
+
+        /**
+         * Gets the standard error of the estimate of a statistic.
+         *
+         * @param statistic the statistic
+         * @return the standard error
+         */
+        public double getStandardError(Statistic statistic) {
+            if (pairs < 2)
+                return Double.POSITIVE_INFINITY;
+
+            double mean = getMean(statistic);
+            double variance = (sumSq[statistic.ordinal()] - pairs * mean * mean) / (pairs - 1);
+            return Math.sqrt(Math.max(0, variance) / pairs);
+        }
+
+        /**
+         * Gets a report of the results.
+         *
+         * @return the report
+         */
+        @Override
+        public String toString() {
+            StringBuilder out = new StringBuilder(String.format("%d trials (%.0f trials/s)", getTrials(), getTrialsPerSecond()));
+
+            for (Statistic statistic : Statistic.values()) {
+                out.append(String.format("%n%-15s %7.3f +/- %.3f", statistic.toString().toLowerCase().replace('_', ' '),
+                        getMean(statistic), getStandardError(statistic)));
+            }
+
+            return out.toString();
+        }
+    }
+
+    /**
+     * Driver method. Rolls out the starting position, black to roll, printing the results as they come in.
+     *
+     * @param args number of trials, number of threads, target standard error of the equity, seed (all optional)
+     * @throws Exception if a worker fails
+     */
+    public static void main(String[] args) throws Exception {
+        int trials = args.length > 0 ? Integer.parseInt(args[0]) : 10000;
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        double targetError = args.length > 2 ? Double.parseDouble(args[2]) : 0;
+        long seed = args.length > 3 ? Long.parseLong(args[3]) : System.nanoTime();
+
+        Rollout rollout = new Rollout(new Position(), Game.Color.BLACK, new int[0], trials, threads, seed);
+        rollout.setTargetError(targetError);
+        rollout.setListener(result -> System.out.println(result + System.lineSeparator()));
+        rollout.run();
+
+        if (rollout.isConverged())
+            System.out.println("Stopped early: target standard error " + targetError + " reached");
+    }
+}
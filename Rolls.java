@@ -0,0 +1,92 @@
+/**
+ * Class containing the table of the 21 distinct rolls of two dice, shared by the dice, the move generator, the search,
+ * the bearoff databases and rollouts.
+ *
+ * Rolls are numbered 0 to 20 in order of the lower die, then the higher die (1-1, 1-2, ..., 1-6, 2-2, ..., 6-6).
+ * A double comes up 1 in 36 rolls and every other roll 2 in 36. The dice of each roll (four for a double) are kept in
+ * shared arrays, so no roll is ever made again.
+ */
+public class Rolls {
+
+    public static final int COUNT = 21;
+
+    /*
+     * Variable Dictionary
+     *
+     * DICE        - dice to play for each roll (four for a double), shared: must not be modified
+     * LOW         - lower die of each roll
+     * HIGH        - higher die of each roll
+     * PROBABILITY - probability of each roll
+     * INDEX       - number of the roll of each pair of dice, indexed by 7 * first + second (either order)
+     */
+    private static final int[][] DICE = new int[COUNT][];
+    private static final int[] LOW = new int[COUNT], HIGH = new int[COUNT];
+    private static final double[] PROBABILITY = new double[COUNT];
+    private static final int[] INDEX = new int[7 * 7];
+
+    static {
+        int r = 0;
+        for (int a = 1; a <= 6; a++) {
+            for (int b = a; b <= 6; b++) {
+                DICE[r] = (a == b) ? new int[]{ a, a, a, a } : new int[]{ a, b };
+                LOW[r] = a;
+                HIGH[r] = b;
+                PROBABILITY[r] = (a == b ? 1 : 2) / 36.0;
+                INDEX[7 * a + b] = r;
+                INDEX[7 * b + a] = r;
+                r++;
+            }
+        }
+    }
+
+    /**
+     * Gets the dice to play for a roll.
+     *
+     * @param roll number of the roll (0-20)
+     * @return values of the dice (four for a double); shared, so must not be modified
+     */
+    public static int[] getDice(int roll) {
+        return DICE[roll];
+    }
+
+    /**
+     * Gets the probability of a roll.
+     *
+     * @param roll number of the roll (0-20)
+     * @return 1/36 for a double, 2/36 otherwise
+     */
+    public static double getProbability(int roll) {
+        return PROBABILITY[roll];
+    }
+
+    /**
+     * Gets the lower die of a roll.
+     *
+     * @param roll number of the roll (0-20)
+     * @return value of the die
+     */
+    public static int getLow(int roll) {
+        return LOW[roll];
+    }
+
+    /**
+     * Gets the higher die of a roll.
+     *
+     * @param roll number of the roll (0-20)
+     * @return value of the die
+     */
+    public static int getHigh(int roll) {
+        return HIGH[roll];
+    }
+
+    /**
+     * Gets the number of the roll of two dice.
+     *
+     * @param a value of one die (1-6)
+     * @param b value of the other die (1-6)
+     * @return number of the roll (0-20)
+     */
+    public static int getIndex(int a, int b) {
+        return INDEX[7 * a + b];
+    }
+}
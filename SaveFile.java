@@ -0,0 +1,174 @@
+import java.io.*;
+import java.util.ArrayList;
+
+/**
+ * Class which saves and loads games in a compact binary format, holding only the state of the game (not the views),
+ * so that saves stay small and can be read after the classes change.
+ *
+ * File format (big-endian): the magic number and version, who plays each colour, the game state (index within
+ * Game.LOOP) and whether the dice were rolled, the signed stone count of every pip from Pip.BLACK_BAR to
+ * Pip.WHITE_BAR (black positive, white negative), the dice left to play, the history of moves (each packed into
+ * an int, see Move.encode()), then the undo records of the moves of the turn in progress (see
+ * Position.executeMove()), so they can still be taken back after loading.
+ */
+public class SaveFile {
+
+    private static final int MAGIC = 0x42475356; // "BGSV"
+
+    // Version written and read (versions 1 and 2 were never released, so load() does not read them)
+    public static final int VERSION = 3;
+
+    // Flags of who plays each colour
+    private static final int BLACK_PLAYER = 1, WHITE_PLAYER = 2;
+
+    /**
+     * Saves the game of a board to a file.
+     *
+     * @param file the file
+     * @param board the board
+     * @throws IOException if the file cannot be written
+     */
+    public static void save(File file, Board board) throws IOException {
+        Game game = board.getGame();
+        Position position = game.getPosition();
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+            out.writeInt(MAGIC);
+            out.writeShort(VERSION);
+
+            out.writeByte((board.isPlayer(Game.Color.BLACK) ? BLACK_PLAYER : 0)
+                    | (board.isPlayer(Game.Color.WHITE) ? WHITE_PLAYER : 0));
+            out.writeByte(game.getCurrentGameState());
+            out.writeBoolean(game.isRolled());
+
+            for (int pip = Pip.BLACK_BAR; pip <= Pip.WHITE_BAR; pip++)
+                out.writeByte(position.getStoneCount(pip) * (position.getColor(pip) == Game.Color.WHITE ? -1 : 1));
+
+            writeDice(out, game.getDice().getValues());
+
+            out.writeShort(game.getHistory().size());
+            for (Move move : game.getHistory())
+                out.writeInt(move.getPacked());
+
+            out.writeByte(game.getUndos().size());
+            for (long undo : game.getUndos())
+                out.writeLong(undo);
+        }
+    }
+
+    /**
+     * Writes a list of dice: their number, then their values.
+     *
+     * @param out the stream
+     * @param dice values of the dice
+     * @throws IOException if the stream cannot be written
+     */
+    private static void writeDice(DataOutputStream out, int[] dice) throws IOException {
+        out.writeByte(dice.length);
+        for (int value : dice)
+            out.writeByte(value);
+    }
+
+    /**
+     * Loads a game from a file, making a new board for it.
+     *
+     * @param file the file (see save())
+     * @return the board
+     * @throws IOException if the file cannot be read or is not a valid save file
+     */
+    public static Board load(File file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != MAGIC)
+                throw new IOException("Not a save file: " + file);
+
+            int version = in.readUnsignedShort();
+            if (version != VERSION)
+                throw new IOException("Unsupported save file version " + version + ": " + file);
+
+            int players = in.readUnsignedByte();
+            int gameState = in.readUnsignedByte();
+            boolean rolled = in.readBoolean();
+            if (gameState >= Game.LOOP.size())
+                throw new IOException("Bad game state " + gameState + ": " + file);
+
+            Position position = new Position();
+            position.clear();
+            int black = 0, white = 0;
+            for (int pip = Pip.BLACK_BAR; pip <= Pip.WHITE_BAR; pip++) {
+                int count = in.readByte();
+                if (Math.abs(count) > Position.STONES)
+                    throw new IOException("Bad stone count " + count + " on pip " + pip + ": " + file);
+                position.setStones(pip, count < 0 ? Game.Color.WHITE : Game.Color.BLACK, Math.abs(count));
+
+                if (count > 0)
+                    black += count;
+                else
+                    white -= count;
+            }
+            if (black != Position.STONES || white != Position.STONES)
+                throw new IOException("Bad stone counts: " + file);
+
+            int[] dice = readDice(in, file);
+
+            int moves = in.readUnsignedShort();
+            ArrayList<Move> history = new ArrayList<>(moves);
+            for (int i = 0; i < moves; i++)
+                history.add(readPackedMove(in, file));
+
+            int count = in.readUnsignedByte();
+            ArrayList<Long> undos = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                long undo = in.readLong();
+                if (!Position.isValidUndo(undo) || undos.size() >= moves)
+                    throw new IOException("Bad undo record " + Long.toHexString(undo) + ": " + file);
+                undos.add(undo);
+            }
+
+            Game game = new Game(position, dice, gameState, rolled, history, undos);
+            return new Board(game, (players & BLACK_PLAYER) != 0, (players & WHITE_PLAYER) != 0);
+        }
+    }
+
+    /**
+     * Reads a move packed into an int.
+     *
+     * @param in the stream
+     * @param file the file being read (for error messages)
+     * @return the move
+     * @throws IOException if the stream cannot be read or the move is not valid
+     */
+    private static Move readPackedMove(DataInputStream in, File file) throws IOException {
+        int packed = in.readInt();
+        int count = Move.getDiceCount(packed);
+
+        boolean valid = count >= 1 && count <= 4 && Move.getStartPip(packed) <= Pip.WHITE_BAR
+                && Move.getEndPip(packed) <= Pip.WHITE_BAR;
+        for (int i = 0; i < count; i++)
+            valid &= Move.getDie(packed, i) >= 1 && Move.getDie(packed, i) <= 6;
+
+        if (!valid)
+            throw new IOException("Bad move " + Integer.toHexString(packed) + ": " + file);
+
+        return new Move(packed);
+    }
+
+    /**
+     * Reads a list of dice written by writeDice().
+     *
+     * @param in the stream
+     * @param file the file being read (for error messages)
+     * @return values of the dice
+     * @throws IOException if the stream cannot be read or a value is not 1 to 6
+     */
+    private static int[] readDice(DataInputStream in, File file) throws IOException {
+        int[] dice = new int[in.readUnsignedByte()];
+
+        for (int i = 0; i < dice.length; i++) {
+            dice[i] = in.readUnsignedByte();
+            if (dice[i] < 1 || dice[i] > 6)
+                throw new IOException("Bad die value " + dice[i] + ": " + file);
+        }
+
+        return dice;
+    }
+}
@@ -0,0 +1,309 @@
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Class which plays many complete games between two agents across all cores and reports the results.
+ *
+ * Each worker thread has its own random number generator, agents, and Game object (reset between games).
+ * Before each game, the worker's random number generator is seeded and the game given a new source of dice, both made
+ * from the seed and the number of the game, so each game is the same whichever worker plays it: a seeded run gives the
+ * same results with any number of threads (for agents which do not depend on time). Given a dice tape, each game reads
+ * the tape from its first die instead (see TapeDiceSource).
+ */
+public class Simulation {
+
+    /*
+     * Variable Dictionary
+     *
+     * games        - number of games to play
+     * threads      - number of worker threads
+     * seed         - seed from which the random number generators and dice of each game are made
+     * blackAgent   - makes the agent playing black, given a worker's random number generator
+     * whiteAgent   - makes the agent playing white, given a worker's random number generator
+     * diceTape     - dice tape read by every game (null to roll random dice made from the seed)
+     */
+    private int games, threads;
+    private long seed;
+    private Function<Random, Agent> blackAgent, whiteAgent;
+    private TapeDiceSource diceTape;
+
+    /**
+     * Constructs a new simulation.
+     *
+     * @param games number of games to play
+     * @param threads number of worker threads
+     * @param seed seed of the random number generators
+     * @param blackAgent makes the agent playing black
+     * @param whiteAgent makes the agent playing white
+     */
+    public Simulation(int games, int threads, long seed, Function<Random, Agent> blackAgent, Function<Random, Agent> whiteAgent) {
+        this.games = games;
+        this.threads = threads;
+        this.seed = seed;
+        this.blackAgent = blackAgent;
+        this.whiteAgent = whiteAgent;
+    }
+
+    /**
+     * Sets a dice tape for every game to read from its first die, with a position of its own.
+     *
+     * @param diceTape the tape (null to roll random dice made from the seed)
+     */
+    public void setDiceTape(TapeDiceSource diceTape) {
+        this.diceTape = diceTape;
+    }
+
+    /**
+     * Plays all games and waits for them to finish.
+     *
+     * @return the combined results
+     * @throws Exception if a worker fails
+     */
+    public Result run() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        AtomicInteger next = new AtomicInteger();
+        ArrayList<Future<Result>> futures = new ArrayList<>();
+        long startTime = System.nanoTime();
+
+        for (int i = 0; i < threads; i++)
+            futures.add(executor.submit(() -> runWorker(next)));
+
+        Result total = new Result();
+        try {
+            for (Future<Result> future : futures)
+                total.add(future.get());
+        } finally {
+            executor.shutdown();
+        }
+
+        total.nanos = System.nanoTime() - startTime;
+        return total;
+    }
+
+    /**
+     * Plays games on one worker thread until all games have been claimed.
+     *
+     * @param next counter of games claimed by all workers
+     * @return the worker's results
+     */
+    private Result runWorker(AtomicInteger next) {
+        Result result = new Result();
+        Random random = new Random();
+        Game game = new Game();
+        Agent black = blackAgent.apply(random), white = whiteAgent.apply(random);
+        int index;
+
+        while ((index = next.getAndIncrement()) < games) {
+            // Seed the game from its number, so it does not depend on which worker plays it
+            long gameSeed = seed + 0x9E3779B97F4A7C15L * (index + 1);
+            random.setSeed(gameSeed);
+            game.setDiceSource(diceTape != null ? diceTape.copy() : new RandomDiceSource(gameSeed));
+
+            game.reset();
+            int plies = playGame(game, black, white);
+            result.addGame(game, plies);
+        }
+
+        return result;
+    }
+
+    /**
+     * Plays a game to the end, following the game loop.
+     *
+     * @param game the game (from any state)
+     * @param black agent playing black
+     * @param white agent playing white
+     * @return number of plays made
+     */
+    public static int playGame(Game game, Agent black, Agent white) {
+        int plies = 0;
+
+        while (!game.isGameOver()) {
+            switch (game.getEvent()) {
+
+                case BLACK_DICE_ROLL:
+                case WHITE_DICE_ROLL:
+                    game.rollDice();
+                    break;
+
+                case BLACK_MOVE:
+                case WHITE_MOVE:
+                    ArrayList<Play> plays = game.getPlays();
+                    Agent agent = game.getTurn() == Game.Color.BLACK ? black : white;
+                    game.executePlay(agent.choosePlay(game, plays));
+                    plies++;
+                    break;
+
+                default:
+                    break;
+            }
+
+            game.updateGame();
+        }
+
+        return plies;
+    }
+
+    /**
+     * Gets a factory for an agent by name.
+     *
+     * @param name name of the agent ("random" or "expectiminimax")
+     * @return the factory
+     */
+    public static Function<Random, Agent> getAgentFactory(String name) {
+        switch (name) {
+            case "random":
+                return RandomAgent::new;
+            case "expectiminimax":
+                return random -> new ExpectiminimaxAgent(BearoffEvaluator.create(NeuralEvaluator.loadDefault(new HeuristicEvaluator())), 2, 1000);
+            default:
+                throw new IllegalArgumentException("Unknown agent: " + name);
+        }
+    }
+
+    /**
+     * Class containing the results of a number of games.
+     */
+    public static class Result {
+
+        /*
+         * Variable Dictionary
+         *
+         * games       - number of games played
+         * plies       - number of plays made in all games
+         * wins        - games won, indexed by Game.Color ordinal
+         * gammons     - gammons (and backgammons) won, indexed by Game.Color ordinal
+         * backgammons - backgammons won, indexed by Game.Color ordinal
+         * nanos       - time taken to play the games
+         */
+        private long games, plies, nanos;
+        private long[] wins = new long[2], gammons = new long[2], backgammons = new long[2];
+
+        /**
+         * Adds a finished game.
+         *
+         * @param game the game
+         * @param plies number of plays made in the game
+         */
+        private void addGame(Game game, int plies) {
+            int winner = game.getWinner().ordinal(), points = game.getWinPoints();
+
+            games++;
+            this.plies += plies;
+            wins[winner]++;
+            if (points >= 2) gammons[winner]++;
+            if (points >= 3) backgammons[winner]++;
+        }
+
+        /**
+         * Adds the results of another set of games.
+         *
+         * @param other the other results
+         */
+        private void add(Result other) {
+            games += other.games;
+            plies += other.plies;
+            for (int i = 0; i < 2; i++) {
+                wins[i] += other.wins[i];
+                gammons[i] += other.gammons[i];
+                backgammons[i] += other.backgammons[i];
+            }
+        }
+
+        /**
+         * Gets the number of games played.
+         *
+         * @return number of games
+         */
+        public long getGames() {
+            return games;
+        }
+
+        /**
+         * Gets the number of games played per second.
+         *
+         * @return games per second
+         */
+        public double getGamesPerSecond() {
+            return games / (nanos / 1e9);
+        }
+
+        /**
+         * Gets the average number of plays made per game.
+         *
+         * @return average plies
+         */
+        public double getAveragePlies() {
+            return (double) plies / games;
+        }
+
+        /**
+         * Gets the fraction of games won by a player.
+         *
+         * @param color colour of the player
+         * @return win rate
+         */
+        public double getWinRate(Game.Color color) {
+            return (double) wins[color.ordinal()] / games;
+        }
+
+        /**
+         * Gets the fraction of games won by a player with a gammon or backgammon.
+         *
+         * @param color colour of the player
+         * @return gammon rate
+         */
+        public double getGammonRate(Game.Color color) {
+            return (double) gammons[color.ordinal()] / games;
+        }
+
+        /**
+         * Gets the fraction of games won by a player with a backgammon.
+         *
+         * @param color colour of the player
+         * @return backgammon rate
+         */
+        public double getBackgammonRate(Game.Color color) {
+            return (double) backgammons[color.ordinal()] / games;
+        }
+
+        /**
+         * Gets a report of the results.
+         *
+         * @return the report
+         */
+        @Override
+        public String toString() {
+            return String.format("%d games in %.2f s (%.0f games/s), %.1f plies/game%n" +
+                            "black: %.1f%% wins, %.1f%% gammons, %.1f%% backgammons%n" +
+                            "white: %.1f%% wins, %.1f%% gammons, %.1f%% backgammons",
+                    games, nanos / 1e9, getGamesPerSecond(), getAveragePlies(),
+                    100 * getWinRate(Game.Color.BLACK), 100 * getGammonRate(Game.Color.BLACK), 100 * getBackgammonRate(Game.Color.BLACK),
+                    100 * getWinRate(Game.Color.WHITE), 100 * getGammonRate(Game.Color.WHITE), 100 * getBackgammonRate(Game.Color.WHITE));
+        }
+    }
+
+    /**
+     * Driver method.
+     *
+     * @param args number of games, number of threads, black agent, white agent, seed, dice tape file (all optional)
+     * @throws Exception if a worker fails
+     */
+    public static void main(String[] args) throws Exception {
+        int games = args.length > 0 ? Integer.parseInt(args[0]) : 10000;
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        String black = args.length > 2 ? args[2] : "random", white = args.length > 3 ? args[3] : "random";
+        long seed = args.length > 4 ? Long.parseLong(args[4]) : System.nanoTime();
+
+        Simulation simulation = new Simulation(games, threads, seed, getAgentFactory(black), getAgentFactory(white));
+        if (args.length > 5)
+            simulation.setDiceTape(TapeDiceSource.open(new File(args[5])));
+        System.out.println(simulation.run());
+    }
+}
@@ -6,7 +6,11 @@ import java.io.Serializable;
  * Class representing a stone.
  */
 public class Stone implements Serializable {
-    private Board.Color color;
+
+    // Shared stones (stones carry no state besides their colour)
+    private static final Stone BLACK = new Stone(Game.Color.BLACK), WHITE = new Stone(Game.Color.WHITE);
+
+    private Game.Color color;
     private Images.k image;
 
     /**
@@ -14,22 +18,36 @@ public class Stone implements Serializable {
      *
      * @param color the color
      */
-    public Stone(Board.Color color) {
+    public Stone(Game.Color color) {
         this.color = color;
 
         // Set image
-        if (color.equals(Board.Color.BLACK))
+        if (color.equals(Game.Color.BLACK))
             image = Images.k.STONE_BLACK;
         else
             image = Images.k.STONE_WHITE;
     }
 
+    /**
+     * Gets the shared stone of the specified colour.
+     *
+     * @param color the color
+     * @return the stone, or null if no colour
+     */
+    public static Stone get(Game.Color color) {
+        if (color == Game.Color.BLACK)
+            return BLACK;
+        if (color == Game.Color.WHITE)
+            return WHITE;
+        return null;
+    }
+
     /**
      * Gets the color of this stone.
      *
      * @return the color
      */
-    public Board.Color getColor(){
+    public Game.Color getColor(){
     	return color;
     }
 
@@ -0,0 +1,151 @@
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Class which gives dice from a tape: a list of dice made in advance, such as one read from a file, so that a run can be
+ * repeated with exactly the same dice.
+ *
+ * Tape file format (text): the values of the dice in order, one digit (1-6) per die. Spaces, line breaks, commas and
+ * dashes between dice are ignored (so "3-1" or "3 1"), and '#' starts a comment running to the end of the line.
+ *
+ * The source may be shared between threads (each die is given once), but then which thread gets which die depends on
+ * how the threads are scheduled; to give each thread or game the same dice, give each its own copy().
+ */
+public class TapeDiceSource implements DiceSource {
+
+    /*
+     * Variable Dictionary
+     *
+     * dice - values of the dice on the tape
+     * next - index within dice of the next die to give
+     */
+    private byte[] dice;
+    private AtomicInteger next = new AtomicInteger();
+
+    /**
+     * Constructs a new source giving the dice of a tape.
+     *
+     * @param dice values of the dice
+     * @throws IllegalArgumentException if a value is not 1 to 6
+     */
+    public TapeDiceSource(byte[] dice) {
+        for (byte value : dice) {
+            if (value < 1 || value > 6)
+                throw new IllegalArgumentException("Bad die value " + value);
+        }
+
+        this.dice = dice.clone();
+    }
+
+    /**
+     * Makes a new source giving the same tape from its first die, with a position of its own.
+     *
+     * @return the new source
+     */
+    public TapeDiceSource copy() {
+        return new TapeDiceSource(dice);
+    }
+
+    /**
+     * Reads a tape from a file.
+     *
+     * @param file the file
+     * @return the source
+     * @throws IOException if the file cannot be read or is not a valid tape
+     */
+    public static TapeDiceSource open(File file) throws IOException {
+        String text = new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+        ByteArrayOutputStream dice = new ByteArrayOutputStream(text.length());
+        int line = 1;
+
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+
+            if (c >= '1' && c <= '6') {
+                dice.write(c - '0');
+            } else if (c == '#') {
+                while (i + 1 < text.length() && text.charAt(i + 1) != '\n')
+                    i++;
+            } else if (c == '\n') {
+                line++;
+            } else if (!Character.isWhitespace(c) && c != ',' && c != '-') {
+                throw new IOException("Bad character '" + c + "' on line " + line + ": " + file);
+            }
+        }
+
+        return new TapeDiceSource(dice.toByteArray());
+    }
+
+    /**
+     * Writes a tape of dice rolled from another source, two dice per line.
+     *
+     * @param file the file
+     * @param source source of the dice
+     * @param rolls number of rolls (pairs of dice) to write
+     * @throws IOException if the file cannot be written
+     */
+    public static void write(File file, DiceSource source, int rolls) throws IOException {
+        try (PrintWriter out = new PrintWriter(new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8)))) {
+            for (int i = 0; i < rolls; i++)
+                out.println(source.nextDie() + " " + source.nextDie());
+        }
+    }
+
+    /**
+     * Gets the number of dice on the tape.
+     *
+     * @return the number of dice
+     */
+    public int getLength() {
+        return dice.length;
+    }
+
+    /**
+     * Gets the number of dice given so far.
+     *
+     * @return the number of dice
+     */
+    public int getPosition() {
+        return Math.min(next.get(), dice.length);
+    }
+
+    /**
+     * Starts the tape again from the first die.
+     */
+    public void rewind() {
+        next.set(0);
+    }
+
+    /**
+     * Gives the next die on the tape.
+     *
+     * @return value of the die (1-6)
+     * @throws IllegalStateException if the tape has run out
+     */
+    @Override
+    public int nextDie() {
+        int i = next.getAndIncrement();
+
+        if (i >= dice.length)
+            throw new IllegalStateException("Dice tape ran out after " + dice.length + " dice");
+
+        return dice[i];
+    }
+
+    /**
+     * Driver method. Writes a tape of seeded random rolls.
+     *
+     * @param args file to write, number of rolls, seed (all optional)
+     * @throws IOException if the file cannot be written
+     */
+    public static void main(String[] args) throws IOException {
+        File file = new File(args.length > 0 ? args[0] : "dice.txt");
+        int rolls = args.length > 1 ? Integer.parseInt(args[1]) : 100000;
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : System.nanoTime();
+
+        write(file, new RandomDiceSource(seed), rolls);
+        System.out.printf("Wrote %s (%d rolls, seed %d)%n", file, rolls, seed);
+    }
+}
@@ -0,0 +1,298 @@
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.DoubleAdder;
+
+/**
+ * Class which trains a NeuralEvaluator by self-play with TD(lambda), without a display.
+ *
+ * Worker threads each play whole games through the game loop of a Game, choosing the play the network rates best.
+ * After each game, every position a player reached is moved towards its lambda-return: a blend of the network's
+ * values of that player's later positions and the final result of the game. All workers update the one network
+ * without locking (Hogwild), which works because each update changes few weights. The weights are saved every so many
+ * games, and the speed and error are reported at the same time.
+ */
+public class TdTrainer {
+
+    /*
+     * Variable Dictionary
+     *
+     * network         - network being trained
+     * file            - file to which the weights are saved
+     * threads         - number of worker threads
+     * seed            - seed from which the workers' random number generators are made
+     * lambda          - weight of later positions in the lambda-return (0 = next position only, 1 = result only)
+     * rate            - learning rate
+     * checkpointGames - number of games between saves of the weights
+     *
+     * games           - number of games claimed by all workers (each is played once claimed)
+     * error           - sum of the squared errors since the last report
+     * updates         - number of updates since the last report
+     * lastReport      - time of the last report
+     * lastGames       - number of games played at the last report
+     */
+    private NeuralEvaluator network;
+    private File file;
+    private int threads;
+    private long seed;
+    private double lambda = 0.7;
+    private float rate = 0.1f;
+    private long checkpointGames = 1000;
+
+    private final AtomicLong games = new AtomicLong();
+    private final DoubleAdder error = new DoubleAdder();
+    private final AtomicLong updates = new AtomicLong();
+    private long lastReport, lastGames;
+
+    /**
+     * Constructs a new trainer.
+     *
+     * @param network network to train
+     * @param file file to which the weights are saved
+     * @param threads number of worker threads
+     * @param seed seed of the random number generators
+     */
+    public TdTrainer(NeuralEvaluator network, File file, int threads, long seed) {
+        this.network = network;
+        this.file = file;
+        this.threads = threads;
+        this.seed = seed;
+    }
+
+    /**
+     * Sets lambda, the weight of later positions in the lambda-return.
+     *
+     * @param lambda lambda (0 to 1)
+     */
+    public void setLambda(double lambda) {
+        this.lambda = lambda;
+    }
+
+    /**
+     * Sets the learning rate.
+     *
+     * @param rate learning rate
+     */
+    public void setRate(float rate) {
+        this.rate = rate;
+    }
+
+    /**
+     * Sets the number of games between saves of the weights.
+     *
+     * @param checkpointGames number of games
+     */
+    public void setCheckpointGames(long checkpointGames) {
+        this.checkpointGames = checkpointGames;
+    }
+
+    /**
+     * Plays and learns from a number of games, then saves the weights.
+     *
+     * @param total number of games
+     * @throws Exception if a worker fails or the weights cannot be saved
+     */
+    public void train(long total) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        ArrayList<Future<?>> futures = new ArrayList<>();
+        lastReport = System.nanoTime();
+
+        for (int i = 0; i < threads; i++) {
+            RandomDiceSource dice = new RandomDiceSource(seed + 0x9E3779B97F4A7C15L * (i + 1));
+            futures.add(executor.submit(() -> {
+                runWorker(dice, total);
+                return null;
+            }));
+        }
+
+        try {
+            for (Future<?> future : futures)
+                future.get();
+        } finally {
+            executor.shutdown();
+        }
+
+        checkpoint(Math.min(games.get(), total));
+    }
+
+    /**
+     * Plays games on one worker thread until all games have been claimed.
+     *
+     * @param dice the worker's source of dice
+     * @param total number of games to play by all workers
+     * @throws IOException if the weights cannot be saved
+     */
+    private void runWorker(DiceSource dice, long total) throws IOException {
+        Game game = new Game(dice);
+        ArrayList<Position> blackPositions = new ArrayList<>(), whitePositions = new ArrayList<>();
+
+        while (true) {
+            // Claim the game first, so the workers never play more than the total between them
+            long claimed = games.getAndIncrement();
+            if (claimed >= total)
+                break;
+
+            game.reset();
+            blackPositions.clear();
+            whitePositions.clear();
+
+            playGame(game, blackPositions, whitePositions);
+            learn(blackPositions, Game.Color.BLACK, game);
+            learn(whitePositions, Game.Color.WHITE, game);
+
+            long played = claimed + 1;
+            if (played % checkpointGames == 0 && played < total)
+                checkpoint(played);
+        }
+    }
+
+    /**
+     * Plays a game to the end, following the game loop, with both players choosing the play the network rates best.
+     *
+     * @param game the game (at the start)
+     * @param blackPositions output list of positions reached by black's plays
+     * @param whitePositions output list of positions reached by white's plays
+     */
+    private void playGame(Game game, ArrayList<Position> blackPositions, ArrayList<Position> whitePositions) {
+        while (!game.isGameOver()) {
+            switch (game.getEvent()) {
+
+                case BLACK_DICE_ROLL:
+                case WHITE_DICE_ROLL:
+                    game.rollDice();
+                    break;
+
+                case BLACK_MOVE:
+                case WHITE_MOVE:
+                    Game.Color color = game.getTurn();
+                    Play best = null;
+                    double bestValue = 0;
+
+                    for (Play play : game.getPlays()) {
+                        double value = network.evaluate(play.getPosition(), color);
+                        if (best == null || value > bestValue) {
+                            best = play;
+                            bestValue = value;
+                        }
+                    }
+
+                    game.executePlay(best);
+                    (color == Game.Color.BLACK ? blackPositions : whitePositions).add(new Position(best.getPosition()));
+                    break;
+
+                default:
+                    break;
+            }
+
+            game.updateGame();
+        }
+    }
+
+    /**
+     * Moves the network's values of a player's positions towards their lambda-returns.
+     *
+     * @param positions positions reached by the player's plays, in order
+     * @param color colour of the player
+     * @param game the finished game
+     */
+    private void learn(ArrayList<Position> positions, Game.Color color, Game game) {
+        NeuralEvaluator.Activations activations = network.getActivations();
+        int n = positions.size();
+        if (n == 0)
+            return;
+
+        // Values of the positions, before learning from this game
+        float[][] values = new float[n][];
+        for (int t = 0; t < n; t++) {
+            NeuralEvaluator.encode(positions.get(t), color, activations);
+            network.forward(activations);
+            values[t] = activations.output.clone();
+        }
+
+        // Lambda-returns, from the result backwards
+        float[][] targets = new float[n][];
+        targets[n - 1] = getResult(game, color);
+        for (int t = n - 2; t >= 0; t--) {
+            targets[t] = new float[NeuralEvaluator.OUTPUTS];
+            for (int o = 0; o < NeuralEvaluator.OUTPUTS; o++)
+                targets[t][o] = (float) ((1 - lambda) * values[t + 1][o] + lambda * targets[t + 1][o]);
+        }
+
+        double squaredError = 0;
+        for (int t = 0; t < n; t++) {
+            NeuralEvaluator.encode(positions.get(t), color, activations);
+            network.forward(activations);
+            squaredError += network.train(activations, targets[t], rate);
+        }
+
+        error.add(squaredError);
+        updates.addAndGet(n);
+    }
+
+    /**
+     * Gets the result of a finished game as the network's outputs, for a player.
+     *
+     * @param game the finished game
+     * @param color colour of the player
+     * @return the outputs (see NeuralEvaluator)
+     */
+    private static float[] getResult(Game game, Game.Color color) {
+        float[] result = new float[NeuralEvaluator.OUTPUTS];
+        int points = game.getWinPoints();
+
+        if (game.getWinner() == color) {
+            result[NeuralEvaluator.WIN] = 1;
+            result[NeuralEvaluator.WIN_GAMMON] = points >= 2 ? 1 : 0;
+            result[NeuralEvaluator.WIN_BACKGAMMON] = points >= 3 ? 1 : 0;
+        } else {
+            result[NeuralEvaluator.LOSE_GAMMON] = points >= 2 ? 1 : 0;
+            result[NeuralEvaluator.LOSE_BACKGAMMON] = points >= 3 ? 1 : 0;
+        }
+
+        return result;
+    }
+
+    /**
+     * Saves the weights (replacing the file only once the new one is complete) and reports progress.
+     *
+     * @param played number of games played
+     * @throws IOException if the weights cannot be saved
+     */
+    private synchronized void checkpoint(long played) throws IOException {
+        File temp = new File(file.getPath() + ".tmp");
+        network.save(temp);
+        Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        long now = System.nanoTime(), count = updates.getAndSet(0);
+        double squaredError = error.sumThenReset();
+
+        System.out.printf("%d games, %.1f games/s, mean squared error %.4f, saved %s%n", played,
+                (played - lastGames) / ((now - lastReport) / 1e9), count == 0 ? 0 : squaredError / count, file);
+        lastReport = now;
+        lastGames = played;
+    }
+
+    /**
+     * Driver method. Trains the network in NeuralEvaluator.DEFAULT_FILE (a new one if there is none).
+     *
+     * @param args number of games, number of threads, hidden units of a new network, seed (all optional)
+     * @throws Exception if a worker fails or the weights cannot be saved
+     */
+    public static void main(String[] args) throws Exception {
+        long total = args.length > 0 ? Long.parseLong(args[0]) : 100000;
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        int hidden = args.length > 2 ? Integer.parseInt(args[2]) : 80;
+        long seed = args.length > 3 ? Long.parseLong(args[3]) : System.nanoTime();
+
+        File file = NeuralEvaluator.DEFAULT_FILE;
+        NeuralEvaluator network = file.exists() ? NeuralEvaluator.load(file) : NeuralEvaluator.create(hidden, seed);
+
+        new TdTrainer(network, file, threads, seed).train(total);
+    }
+}
@@ -0,0 +1,225 @@
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.stream.IntStream;
+
+/**
+ * Class representing a two-sided bearoff database: for every pair of home boards of up to a set number of stones
+ * each, the exact probability that the player on roll wins the race with best play by both players.
+ *
+ * Home boards are numbered as in OneSidedBearoff. The database is made once by generate() and read through a
+ * memory-mapped file, like OneSidedBearoff.
+ *
+ * File format (big-endian): the header (magic number, points, stones, number of home boards), then the probability
+ * for each pair of home boards (player on roll first, in index order), as unsigned shorts in units of 1 / 65535.
+ */
+public class TwoSidedBearoff {
+
+    // Stones per side in the default database (924 home boards, 1.7 MB)
+    public static final int DEFAULT_STONES = 6;
+
+    public static final File DEFAULT_FILE = new File("res/bearoff/two-sided.db");
+
+    private static final int MAGIC = 0x42475453; // "BGTS"
+    private static final int HEADER = 16;
+
+    /*
+     * Variable Dictionary
+     *
+     * buffer - the mapped file
+     * stones - maximum number of stones of each player
+     * size   - number of home boards of each player
+     */
+    private ByteBuffer buffer;
+    private int stones, size;
+
+    /**
+     * Constructs a database over a mapped file. (Use open())
+     *
+     * @param buffer the mapped file
+     * @param stones maximum number of stones of each player
+     */
+    private TwoSidedBearoff(ByteBuffer buffer, int stones) {
+        this.buffer = buffer;
+        this.stones = stones;
+        this.size = OneSidedBearoff.getSize(stones);
+    }
+
+    /**
+     * Opens a database file, mapping it into memory.
+     *
+     * @param file the file (see generate())
+     * @return the database
+     * @throws IOException if the file cannot be read or is not a two-sided bearoff database
+     */
+    public static TwoSidedBearoff open(File file) throws IOException {
+        try (RandomAccessFile in = new RandomAccessFile(file, "r"); FileChannel channel = in.getChannel()) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+
+            int stones = buffer.getInt(8), size = buffer.getInt(12);
+            if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != OneSidedBearoff.POINTS || stones < 1
+                    || stones > OneSidedBearoff.STONES || size != OneSidedBearoff.getSize(stones)
+                    || channel.size() != HEADER + 2L * size * size)
+                throw new IOException("Not a two-sided bearoff database: " + file);
+
+            // The mapping stays valid after the channel is closed
+            return new TwoSidedBearoff(buffer, stones);
+        }
+    }
+
+    /**
+     * Gets the maximum number of stones of each player.
+     *
+     * @return number of stones
+     */
+    public int getStones() {
+        return stones;
+    }
+
+    /**
+     * Checks whether a home board is in the database.
+     *
+     * @param index index of the home board (see OneSidedBearoff.getIndex())
+     * @return true if the board has no more than getStones() stones
+     */
+    public boolean contains(int index) {
+        return index < size;
+    }
+
+    /**
+     * Gets the probability that the player on roll wins.
+     *
+     * @param onRoll index of the home board of the player on roll (see OneSidedBearoff.getIndex())
+     * @param other index of the home board of the other player
+     * @return the probability
+     */
+    public double getWinProbability(int onRoll, int other) {
+        return (buffer.getShort(HEADER + 2 * (onRoll * size + other)) & 0xFFFF) / 65535.0;
+    }
+
+    /**
+     * Generates the database and writes it to a file.
+     *
+     * Works backwards from the finished boards: the value of a pair depends only on pairs with fewer pips in total
+     * (after any play), so pairs are solved in order of total pip count, and the pairs with the same total are solved
+     * in parallel. The plays of each board and roll do not depend on the other board, so they are generated once.
+     *
+     * @param file the file to write
+     * @param stones maximum number of stones of each player
+     * @throws IOException if the file cannot be written
+     */
+    public static void generate(File file, int stones) throws IOException {
+        int size = OneSidedBearoff.getSize(stones);
+
+        // Pips and distinct successors of each board for each of the 21 rolls
+        int[] pips = new int[size];
+        int[][][] successors = new int[size][][];
+        IntStream.range(0, size).parallel().forEach(index -> {
+            int[] counts = OneSidedBearoff.getBoard(index);
+            for (int i = 0; i < OneSidedBearoff.POINTS; i++)
+                pips[index] += (i + 1) * counts[i];
+            successors[index] = getSuccessors(counts);
+        });
+
+        // Pairs by total pip count
+        int maxPips = 2 * stones * OneSidedBearoff.POINTS;
+        int[] levelSizes = new int[maxPips + 2];
+        for (int i = 0; i < size; i++)
+            for (int j = 0; j < size; j++)
+                levelSizes[pips[i] + pips[j] + 1]++;
+        for (int level = 1; level < levelSizes.length; level++)
+            levelSizes[level] += levelSizes[level - 1];
+
+        int[] pairs = new int[size * size], fill = levelSizes.clone();
+        for (int i = 0; i < size; i++)
+            for (int j = 0; j < size; j++)
+                pairs[fill[pips[i] + pips[j]]++] = i * size + j;
+
+        double[] wins = new double[size * size];
+        for (int level = 0; level <= maxPips; level++) {
+            IntStream.range(levelSizes[level], levelSizes[level + 1]).parallel().forEach(k -> {
+                int pair = pairs[k];
+                wins[pair] = solve(pair / size, pair % size, size, successors, wins);
+            });
+        }
+
+        file.getAbsoluteFile().getParentFile().mkdirs();
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(OneSidedBearoff.POINTS);
+            out.writeInt(stones);
+            out.writeInt(size);
+
+            for (double win : wins)
+                out.writeShort((int) Math.round(win * 65535));
+        }
+    }
+
+    /**
+     * Gets the distinct boards a board can reach with each roll. Method should only be called from inside generate().
+     *
+     * @param counts stones on each point
+     * @return indices of the boards reached, for each roll (see Rolls)
+     */
+    private static int[][] getSuccessors(int[] counts) {
+        Position position = OneSidedBearoff.getPosition(counts);
+        int[][] out = new int[Rolls.COUNT][];
+
+        for (int r = 0; r < Rolls.COUNT; r++) {
+            out[r] = MoveGenerator.generatePlays(position, Game.Color.BLACK, Rolls.getDice(r)).stream()
+                    .mapToInt(play -> OneSidedBearoff.getIndex(play.getPosition(), Game.Color.BLACK))
+                    .distinct().toArray();
+        }
+
+        return out;
+    }
+
+    /**
+     * Solves one pair of boards from the solutions of the pairs with fewer pips. Method should only be called from
+     * inside generate().
+     *
+     * @param onRoll index of the board of the player on roll
+     * @param other index of the board of the other player
+     * @param size number of boards
+     * @param successors distinct successors of each board for each roll
+     * @param wins win probabilities of the player on roll, by pair
+     * @return win probability of the player on roll
+     */
+    private static double solve(int onRoll, int other, int size, int[][][] successors, double[] wins) {
+        // A player with no stones left has already won
+        if (onRoll == 0)
+            return 1;
+        if (other == 0)
+            return 0;
+
+        double win = 0;
+
+        for (int r = 0; r < Rolls.COUNT; r++) {
+            // Best play leaves the other player (now on roll) the lowest chance
+            double best = 0;
+            for (int next : successors[onRoll][r])
+                best = Math.max(best, next == 0 ? 1 : 1 - wins[other * size + next]);
+
+            win += Rolls.getProbability(r) * best;
+        }
+
+        return win;
+    }
+
+    /**
+     * Driver method. Generates the database.
+     *
+     * @param args maximum number of stones of each player, file to write (both optional)
+     * @throws IOException if the file cannot be written
+     */
+    public static void main(String[] args) throws IOException {
+        int stones = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_STONES;
+        File file = args.length > 1 ? new File(args[1]) : DEFAULT_FILE;
+        long start = System.nanoTime();
+
+        generate(file, stones);
+        System.out.printf("Wrote %s (%d stones, %d pairs) in %.1f s%n", file, stones,
+                (long) OneSidedBearoff.getSize(stones) * OneSidedBearoff.getSize(stones), (System.nanoTime() - start) / 1e9);
+    }
+}
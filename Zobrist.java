@@ -0,0 +1,78 @@
+import java.util.SplittableRandom;
+
+/**
+ * Class containing the random keys used to hash positions (Zobrist hashing).
+ *
+ * The key of a position is the XOR of one key per pip (chosen by the signed stone count on the pip), so moving a
+ * stone only changes the keys of the pips it touches. Side to move and dice are XORed in on top.
+ */
+public class Zobrist {
+
+    // Fixed seed so keys are the same in every run (keys are saved with positions)
+    private static final long SEED = 0x5DEECE66DL;
+
+    /*
+     * Variable Dictionary
+     *
+     * PIPS  - key per pip slot and signed stone count (count + Position.STONES); empty pips have key 0
+     * SIDE  - key XORed in when white is to move
+     * DICE  - key per die value and number of dice of that value
+     */
+    private static final long[][] PIPS = new long[Position.SIZE][2 * Position.STONES + 1];
+    private static final long SIDE;
+    private static final long[][] DICE = new long[7][5];
+
+    static {
+        SplittableRandom random = new SplittableRandom(SEED);
+
+        for (int i = 0; i < Position.SIZE; i++)
+            for (int j = 0; j < PIPS[i].length; j++)
+                PIPS[i][j] = (j == Position.STONES) ? 0 : random.nextLong();
+
+        SIDE = random.nextLong();
+
+        for (int v = 1; v <= 6; v++)
+            for (int n = 1; n < DICE[v].length; n++)
+                DICE[v][n] = random.nextLong();
+    }
+
+    /**
+     * Gets the key of a pip slot holding a signed number of stones.
+     *
+     * @param slot index of the pip (pip number + Position.OFFSET)
+     * @param count signed number of stones (black positive, white negative)
+     * @return the key
+     */
+    public static long getPipKey(int slot, int count) {
+        return PIPS[slot][count + Position.STONES];
+    }
+
+    /**
+     * Gets the key of the side to move.
+     *
+     * @param color colour of the player to move
+     * @return the key (0 for black)
+     */
+    public static long getSideKey(Game.Color color) {
+        return color == Game.Color.WHITE ? SIDE : 0;
+    }
+
+    /**
+     * Gets the key of the dice left to play.
+     *
+     * @param dice values of the dice
+     * @return the key (0 if no dice)
+     */
+    public static long getDiceKey(int[] dice) {
+        long key = 0, n = 0;
+
+        // Count dice of each value (4 bits per value)
+        for (int value : dice)
+            n += 1L << (4 * value);
+
+        for (int v = 1; v <= 6; v++)
+            key ^= DICE[v][(int) (n >>> (4 * v)) & 0xF];
+
+        return key;
+    }
+}
@@ -0,0 +1,74 @@
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Class containing the dense layer loops of NeuralEvaluator written with the Vector API (jdk.incubator.vector), using
+ * the widest vectors of the processor.
+ *
+ * The module is incubating, so this class is kept apart from the others and compiled and run only with
+ * "--add-modules jdk.incubator.vector" (see RUN_VECTOR.bat). NeuralEvaluator loads it by name when the module is
+ * present, and otherwise uses its scalar loops.
+ */
+class VectorKernel implements NeuralEvaluator.Kernel {
+
+    private static final VectorSpecies<Float> SPECIES = FloatVector.SPECIES_PREFERRED;
+
+    /**
+     * Adds a multiple of a row of weights to some sums: sums[j] += x * weights[offset + j].
+     *
+     * @param sums the sums
+     * @param weights the weights
+     * @param offset index within weights of the row
+     * @param x the multiple
+     * @param n number of sums
+     */
+    @Override
+    public void addScaled(float[] sums, float[] weights, int offset, float x, int n) {
+        FloatVector scale = FloatVector.broadcast(SPECIES, x);
+        int j = 0;
+
+        for (int bound = SPECIES.loopBound(n); j < bound; j += SPECIES.length()) {
+            FloatVector.fromArray(SPECIES, weights, offset + j)
+                    .fma(scale, FloatVector.fromArray(SPECIES, sums, j))
+                    .intoArray(sums, j);
+        }
+
+        for (; j < n; j++)
+            sums[j] += x * weights[offset + j];
+    }
+
+    /**
+     * Gets the dot product of some values and a row of weights.
+     *
+     * @param values the values
+     * @param weights the weights
+     * @param offset index within weights of the row
+     * @param n number of values
+     * @return the dot product
+     */
+    @Override
+    public float dot(float[] values, float[] weights, int offset, int n) {
+        FloatVector sum = FloatVector.zero(SPECIES);
+        int j = 0;
+
+        for (int bound = SPECIES.loopBound(n); j < bound; j += SPECIES.length())
+            sum = FloatVector.fromArray(SPECIES, values, j).fma(FloatVector.fromArray(SPECIES, weights, offset + j), sum);
+
+        float s = sum.reduceLanes(VectorOperators.ADD);
+        for (; j < n; j++)
+            s += values[j] * weights[offset + j];
+
+        return s;
+    }
+
+    /**
+     * Gets the name of this kernel, for reports.
+     *
+     * @return the name, with the vector width
+     */
+    @Override
+    public String toString() {
+        return "vector (" + SPECIES.vectorBitSize() + "-bit)";
+    }
+}